@@ -0,0 +1,99 @@
+package com.agentweave.agent;
+
+import com.agentweave.agent.state.HelloState;
+import com.agentweave.loadtest.McpStandInServer;
+import com.agentweave.mcp.BenchmarkClients;
+import com.agentweave.mcp.McpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single greet while batches keep the MCP connections busy
+ * A background loop runs batches of {@code batchSize} names back to back. Without a scheduler
+ * every name starts its run at once on a thread of its own, as an unscheduled batch endpoint
+ * would, and the single greet queues behind them for one of the 64 MCP connections. With the
+ * scheduler, batches use the bulk lane (60 of 64 slots) and the greet goes through the
+ * interactive lane. The MCP stand-in answers after a fixed 20ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentSchedulerBenchmark {
+
+    private static final int MCP_CONNECTIONS = 64;
+
+    @Param({"none", "fair"})
+    public String scheduler;
+
+    @Param({"2000"})
+    public int batchSize;
+
+    private McpStandInServer server;
+    private McpClient mcpClient;
+    private ExecutorService runExecutor;
+    private HelloAgent helloAgent;
+    private AgentScheduler agentScheduler;
+    private Disposable batches;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new McpStandInServer(McpStandInServer.Options.parse(
+            new String[] {"--port=0", "--latency=fixed:20ms"}));
+        mcpClient = BenchmarkClients.create(server.url(), MCP_CONNECTIONS);
+        runExecutor = Executors.newCachedThreadPool();
+        agentScheduler = scheduler.equals("fair")
+            ? new AgentScheduler(new SimpleMeterRegistry(), MCP_CONNECTIONS, 4, 1000, MCP_CONNECTIONS, 4)
+            : null;
+        helloAgent = new HelloAgent(mcpClient, new GraphRegistry(new SimpleMeterRegistry()), ObservationRegistry.NOOP,
+            runExecutor, null, agentScheduler);
+
+        Flux<Map<String, Object>> inputs = Flux.range(0, batchSize)
+            .map(i -> Map.<String, Object>of(HelloState.NAME_KEY, "bulk-" + i));
+        Flux<?> batch = agentScheduler != null
+            ? helloAgent.executeBatch("bulk", inputs, Duration.ofMinutes(1))
+            : inputs.flatMap(input -> Mono.fromFuture(() -> helloAgent.executeAsync(input)), batchSize);
+        batches = batch.onErrorResume(e -> Mono.empty())
+            .repeat()
+            .subscribe();
+    }
+
+    @TearDown
+    public void tearDown() {
+        batches.dispose();
+        mcpClient.close();
+        server.close();
+        runExecutor.shutdownNow();
+        if (agentScheduler != null) {
+            agentScheduler.close();
+        }
+    }
+
+    @Benchmark
+    public String interactiveGreet() {
+        return helloAgent.submitGreet("bench").join();
+    }
+}
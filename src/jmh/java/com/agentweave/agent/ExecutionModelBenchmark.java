@@ -0,0 +1,107 @@
+package com.agentweave.agent;
+
+import com.agentweave.loadtest.McpStandInServer;
+import com.agentweave.mcp.BenchmarkClients;
+import com.agentweave.mcp.McpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Blocking HelloAgent.greet calls at high concurrency on platform vs. virtual threads
+ * Each operation starts {@code concurrency} greets at once, as many request threads would, and
+ * waits for all of them. The MCP stand-in answers after a fixed 20ms, so the platform pool
+ * (200 threads, Tomcat's default) queues while virtual threads simply park. greet runs the graph
+ * on the calling thread, so each call holds its thread for the whole run. The virtual variant
+ * needs a Java 21 runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExecutionModelBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000", "10000"})
+    public int concurrency;
+
+    private McpStandInServer server;
+    private McpClient mcpClient;
+    private HelloAgent helloAgent;
+    private ExecutorService platformThreads;
+    private VirtualThreadTaskExecutor virtualThreads;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new McpStandInServer(McpStandInServer.Options.parse(
+            new String[] {"--port=0", "--latency=fixed:20ms"}));
+        // Enough connections that the pool is not the bottleneck for either thread model
+        mcpClient = BenchmarkClients.create(server.url(), 1000);
+        if (threads.equals("virtual")) {
+            virtualThreads = new VirtualThreadTaskExecutor("bench-");
+        } else {
+            platformThreads = Executors.newFixedThreadPool(200);
+        }
+        // Only async runs use the run executor; greet does not
+        helloAgent = new HelloAgent(mcpClient, new GraphRegistry(new SimpleMeterRegistry()), ObservationRegistry.NOOP,
+            virtualThreads != null ? virtualThreads : platformThreads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (platformThreads != null) {
+            platformThreads.shutdownNow();
+        }
+        mcpClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int greetAll() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < concurrency; i++) {
+            Runnable call = () -> {
+                try {
+                    helloAgent.greet("bench");
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            };
+            if (virtualThreads != null) {
+                virtualThreads.execute(call);
+            } else {
+                platformThreads.execute(call);
+            }
+        }
+        done.await();
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + concurrency + " greets failed");
+        }
+        return concurrency;
+    }
+}
@@ -0,0 +1,79 @@
+package com.agentweave.agent;
+
+import com.agentweave.agent.state.HelloState;
+import com.agentweave.loadtest.McpStandInServer;
+import com.agentweave.mcp.BenchmarkClients;
+import com.agentweave.mcp.McpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HelloAgent cost split into graph compilation, one graph invocation and a full greet
+ * MCP calls go over loopback HTTP to an in-process {@link McpStandInServer} with no injected
+ * latency, so the numbers include the client's encode, pool, decode and graph overhead only.
+ * Graph steps continue on the completing thread, without an executor hop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HelloAgentBenchmark {
+
+    private McpStandInServer server;
+    private McpClient mcpClient;
+    private CompiledGraph<HelloState> compiledGraph;
+    private HelloAgent helloAgent;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new McpStandInServer(McpStandInServer.Options.parse(new String[] {"--port=0"}));
+        mcpClient = BenchmarkClients.create(server.url(), 100);
+        compiledGraph = HelloAgent.buildGraph(mcpClient, ObservationRegistry.NOOP).compile();
+        helloAgent = new HelloAgent(mcpClient, new GraphRegistry(new SimpleMeterRegistry()), ObservationRegistry.NOOP,
+            Runnable::run);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mcpClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    public CompiledGraph<HelloState> compile() throws GraphStateException {
+        return HelloAgent.buildGraph(mcpClient, ObservationRegistry.NOOP).compile();
+    }
+
+    @Benchmark
+    public HelloState invoke() {
+        return compiledGraph.invoke(Map.<String, Object>of(HelloState.NAME_KEY, "bench")).orElseThrow();
+    }
+
+    @Benchmark
+    public String greet() {
+        return helloAgent.greet("bench");
+    }
+
+    @Benchmark
+    public String greetAsync() {
+        return helloAgent.greetAsync("bench").join();
+    }
+}
@@ -0,0 +1,125 @@
+package com.agentweave.agent.checkpoint;
+
+import com.agentweave.agent.state.HelloState;
+import com.agentweave.mail.Email;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * Cost of checkpointing on a graph run of {@code nodes} trivial nodes, so nearly all of the
+ * difference between savers is checkpoint overhead: none, LangGraph4j's {@link MemorySaver},
+ * or {@link FileCheckpointSaver} (encoding plus an enqueue; the write and fsync happen on the
+ * log's writer thread). Dividing the difference to "none" by {@code nodes} gives the added
+ * latency per node transition. {@code emails} adds a list of emails to the state, as a mail run
+ * would carry. Every run has its own thread id and is released at END, as HelloAgent's are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckpointSaverBenchmark {
+
+    @Param({"none", "memory", "file"})
+    public String saver;
+
+    @Param({"0", "100"})
+    public int emails;
+
+    @Param({"5"})
+    public int nodes;
+
+    private final AtomicLong runs = new AtomicLong();
+    private Path directory;
+    private FileCheckpointSaver fileSaver;
+    private CompiledGraph<HelloState> compiledGraph;
+    private Map<String, Object> input;
+
+    @Setup
+    public void setUp() throws IOException, GraphStateException {
+        CompileConfig.Builder config = CompileConfig.builder().releaseThread(true);
+        switch (saver) {
+            case "memory" -> config.checkpointSaver(new MemorySaver());
+            case "file" -> {
+                directory = Files.createTempDirectory("checkpoints");
+                fileSaver = new FileCheckpointSaver(directory.resolve("checkpoints.log"), Duration.ofMillis(10),
+                    10, Duration.ofSeconds(1), 1 << 20, new SimpleMeterRegistry());
+                config.checkpointSaver(fileSaver);
+            }
+            default -> {
+            }
+        }
+        StateGraph<HelloState> graph = new StateGraph<>(HelloState.SCHEMA, HelloState::new);
+        String previous = StateGraph.START;
+        for (int i = 0; i < nodes; i++) {
+            String node = "node" + i;
+            String greeting = "step " + i;
+            graph.addNode(node, node_async(state -> Map.of(HelloState.GREETING_KEY, greeting)))
+                .addEdge(previous, node);
+            previous = node;
+        }
+        graph.addEdge(previous, StateGraph.END);
+        compiledGraph = graph.compile(config.build());
+
+        List<Email> mails = new ArrayList<>(emails);
+        for (int i = 0; i < emails; i++) {
+            mails.add(new Email("id-" + i, "Subject " + i, "sender@example.com", "me@example.com",
+                "2024-01-01T00:00:00Z", "inbox", "Body of email " + i));
+        }
+        input = new HashMap<>();
+        input.put(HelloState.NAME_KEY, "bench");
+        input.put("emails", mails);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (fileSaver != null) {
+            fileSaver.close();
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public HelloState run() {
+        RunnableConfig config = RunnableConfig.builder()
+            .threadId("bench-" + runs.incrementAndGet())
+            .build();
+        return compiledGraph.invoke(input, config).orElseThrow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.agentweave.agent.state;
+
+import org.bsc.langgraph4j.state.AgentState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HelloState cost as nodes keep updating the same keys
+ * {@code updates} is the number of node updates applied to each key before reading; with
+ * last-value channels both the per-update cost and the getter cost stay flat as it grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelloStateBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int updates;
+
+    private Map<String, Object> data;
+    private HelloState state;
+    private Map<String, Object> update;
+
+    @Setup
+    public void setUp() {
+        update = Map.of(
+            HelloState.MESSAGE_KEY, "message",
+            HelloState.GREETING_KEY, "greeting",
+            HelloState.STATUS_KEY, "completed");
+        data = Map.of(HelloState.NAME_KEY, "bench");
+        for (int i = 0; i < updates; i++) {
+            data = AgentState.updateState(data, update, HelloState.SCHEMA);
+        }
+        state = new HelloState(data);
+    }
+
+    @Benchmark
+    public void getAll(Blackhole blackhole) {
+        blackhole.consume(state.getName());
+        blackhole.consume(state.getMessage());
+        blackhole.consume(state.getGreeting());
+        blackhole.consume(state.getStatus());
+    }
+
+    @Benchmark
+    public HelloState applyUpdate() {
+        // One more node update on top of the accumulated state, as the graph does per step
+        return new HelloState(AgentState.updateState(data, update, HelloState.SCHEMA));
+    }
+}
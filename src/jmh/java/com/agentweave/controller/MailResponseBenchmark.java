@@ -0,0 +1,131 @@
+package com.agentweave.controller;
+
+import com.agentweave.agent.state.MailState;
+import com.agentweave.mail.Email;
+import com.agentweave.mail.EmailField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writing a /mails response of 1,000 and 10,000 emails
+ * {@code map} is the former response: a HashMap serialized by the ObjectMapper into a byte
+ * array. {@code streamed} writes the same body with a JsonGenerator straight to the output,
+ * {@code projected} writes only id, subject, from and date. Each is measured uncompressed and
+ * gzipped at level 1. Run with {@code -prof gc} for the allocation per response; every
+ * benchmark returns the number of bytes written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailResponseBenchmark {
+
+    private static final Set<EmailField> DASHBOARD_FIELDS =
+        EmailField.parse(List.of("id", "subject", "from", "date"));
+
+    @Param({"1000", "10000"})
+    public int emails;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonResponses jsonResponses = new JsonResponses(1);
+    private MailState state;
+
+    @Setup
+    public void setUp() {
+        List<Email> mailbox = new ArrayList<>(emails);
+        String body = "Hi team, please find the updated figures attached. ".repeat(6);
+        for (int i = 0; i < emails; i++) {
+            mailbox.add(new Email("AAMkAGI2TG93AAA=" + i, "Quarterly report follow-up #" + i,
+                "sender" + (i % 50) + "@example.com", "me@example.com",
+                "2024-01-" + String.format("%02d", 1 + i % 28) + "T09:30:00Z", "inbox", body + i));
+        }
+        state = new MailState(Map.of(MailState.EMAILS_KEY, mailbox, MailState.STATUS_KEY, "success"));
+    }
+
+    @Benchmark
+    public long map() throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("emails", state.getEmails());
+        response.put("count", state.getEmails().size());
+        response.put("status", state.getStatus());
+        response.put("maxResults", emails);
+        response.put("folderId", "inbox");
+        byte[] json = objectMapper.writeValueAsBytes(response);
+        if (encoding.equals("identity")) {
+            return json.length;
+        }
+        CountingStream out = new CountingStream();
+        // The container's own compression would gzip the whole array the same way
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(1);
+            }
+        }) {
+            gzip.write(json);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamed() throws IOException {
+        return write(EmailField.parse(null));
+    }
+
+    @Benchmark
+    public long projected() throws IOException {
+        return write(DASHBOARD_FIELDS);
+    }
+
+    private long write(Set<EmailField> fields) throws IOException {
+        CountingStream out = new CountingStream();
+        jsonResponses.stream(HttpStatus.OK, encoding.equals("gzip") ? "gzip" : null,
+                generator -> MailController.writeMails(generator, state, fields, emails, List.of("inbox")))
+            .getBody()
+            .writeTo(out);
+        return out.count;
+    }
+
+    /**
+     * Discards what is written and counts the bytes, standing in for the response stream
+     */
+    private static final class CountingStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.agentweave.loadtest;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Latency model for the MCP stand-in, parsed from a short spec:
+ * <ul>
+ *   <li>{@code none}</li>
+ *   <li>{@code fixed:20ms}</li>
+ *   <li>{@code uniform:5ms:50ms}</li>
+ *   <li>{@code exponential:20ms} (mean)</li>
+ *   <li>{@code lognormal:20ms:200ms} (median and p99)</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * z-score of the 99th percentile of a standard normal distribution
+     */
+    double Z_99 = 2.3263;
+
+    /**
+     * @param random Source of randomness (callers pass a thread-local one)
+     * @return Delay in nanoseconds
+     */
+    long sampleNanos(Random random);
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        switch (parts[0]) {
+            case "none" -> {
+                return random -> 0;
+            }
+            case "fixed" -> {
+                long nanos = nanos(parts, 1);
+                return random -> nanos;
+            }
+            case "uniform" -> {
+                long min = nanos(parts, 1);
+                long max = nanos(parts, 2);
+                return random -> min + (long) (random.nextDouble() * (max - min));
+            }
+            case "exponential" -> {
+                long mean = nanos(parts, 1);
+                return random -> (long) (-Math.log(1 - random.nextDouble()) * mean);
+            }
+            case "lognormal" -> {
+                // Fit mu and sigma so that the median and p99 land on the given values
+                double mu = Math.log(nanos(parts, 1));
+                double sigma = (Math.log(nanos(parts, 2)) - mu) / Z_99;
+                return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+
+    private static long nanos(String[] parts, int index) {
+        if (parts.length <= index) {
+            throw new IllegalArgumentException("Missing duration in latency spec: " + String.join(":", parts));
+        }
+        return parseDuration(parts[index]).toNanos();
+    }
+
+    /**
+     * Parse durations like 250us, 20ms, 1.5s or an ISO-8601 duration
+     */
+    static Duration parseDuration(String text) {
+        String value = text.trim();
+        if (value.startsWith("P") || value.startsWith("p")) {
+            return Duration.parse(value);
+        }
+        int unitStart = 0;
+        while (unitStart < value.length()
+                && (Character.isDigit(value.charAt(unitStart)) || value.charAt(unitStart) == '.')) {
+            unitStart++;
+        }
+        double amount = Double.parseDouble(value.substring(0, unitStart));
+        double nanosPerUnit = switch (value.substring(unitStart)) {
+            case "ns" -> 1;
+            case "us" -> 1_000;
+            case "ms", "" -> 1_000_000;
+            case "s" -> 1_000_000_000;
+            case "m" -> 60_000_000_000.0;
+            default -> throw new IllegalArgumentException("Unknown duration unit: " + text);
+        };
+        return Duration.ofNanos((long) (amount * nanosPerUnit));
+    }
+}
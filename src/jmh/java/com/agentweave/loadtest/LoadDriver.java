@@ -0,0 +1,206 @@
+package com.agentweave.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP load driver for the app's endpoints, reporting throughput and p50/p99/p999 latency
+ * <ul>
+ *   <li>closed loop: --concurrency workers each send the next request when the previous
+ *   one completes, measuring capacity at a fixed level of concurrency</li>
+ *   <li>open loop: requests are started at a fixed --rate regardless of completions;
+ *   latency is measured from each request's scheduled start, so queueing delay behind a
+ *   slow server is counted instead of hidden (no coordinated omission)</li>
+ * </ul>
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec@load -Dload.args="--mode=open --rate=500 --duration=30s"
+ */
+public final class LoadDriver {
+
+    /**
+     * Driver settings, parsed from --key=value arguments
+     */
+    record Options(URI url, boolean openLoop, int concurrency, double rate, Duration warmup,
+                   Duration duration, Duration timeout, int maxOutstanding) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+                values.put(pair[0], pair.length > 1 ? pair[1] : "true");
+            }
+            Options options = new Options(
+                URI.create(values.getOrDefault("url", "http://localhost:9090/hello?name=load")),
+                "open".equalsIgnoreCase(values.getOrDefault("mode", "closed")),
+                Integer.parseInt(values.getOrDefault("concurrency", "32")),
+                Double.parseDouble(values.getOrDefault("rate", "200")),
+                LatencyDistribution.parseDuration(values.getOrDefault("warmup", "5s")),
+                LatencyDistribution.parseDuration(values.getOrDefault("duration", "30s")),
+                LatencyDistribution.parseDuration(values.getOrDefault("timeout", "10s")),
+                Integer.parseInt(values.getOrDefault("max-outstanding", "10000")));
+            values.keySet().removeAll(List.of("url", "mode", "concurrency", "rate", "warmup", "duration",
+                "timeout", "max-outstanding"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            return options;
+        }
+    }
+
+    /**
+     * Collects latencies of one phase; sorted once when the report is printed
+     */
+    static final class Recorder {
+
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        void error() {
+            errors.incrementAndGet();
+        }
+
+        synchronized String report(String label, Duration elapsed) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            double seconds = elapsed.toNanos() / 1e9;
+            return String.format(Locale.ROOT,
+                "%-8s requests=%d errors=%d throughput=%.1f/s p50=%s p90=%s p99=%s p999=%s max=%s",
+                label, count, errors.get(), count / seconds,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+                sorted.length > 0 ? format(sorted[sorted.length - 1]) : "-");
+        }
+
+        private static String millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return "-";
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return format(sorted[Math.max(0, index)]);
+        }
+
+        private static String format(long nanos) {
+            return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+        }
+    }
+
+    private final Options options;
+    private final HttpClient httpClient;
+    private final HttpRequest request;
+
+    LoadDriver(Options options) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        this.request = HttpRequest.newBuilder(options.url()).timeout(options.timeout()).GET().build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        LoadDriver driver = new LoadDriver(options);
+        System.out.printf(Locale.ROOT, "%s %s, %s%n", options.openLoop()
+                ? "open loop at " + options.rate() + "/s"
+                : "closed loop with " + options.concurrency() + " workers",
+            options.url(), "warm-up " + options.warmup() + ", measured " + options.duration());
+
+        if (!options.warmup().isZero()) {
+            driver.run(options.warmup(), new Recorder());
+        }
+        Recorder recorder = new Recorder();
+        long start = System.nanoTime();
+        driver.run(options.duration(), recorder);
+        System.out.println(recorder.report("measured", Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    private void run(Duration duration, Recorder recorder) throws InterruptedException {
+        if (options.openLoop()) {
+            runOpenLoop(duration, recorder);
+        } else {
+            runClosedLoop(duration, recorder);
+        }
+    }
+
+    private void runClosedLoop(Duration duration, Recorder recorder) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency());
+        for (int i = 0; i < options.concurrency(); i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        complete(recorder, start, response, null);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        complete(recorder, start, null, e);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.plus(options.timeout()).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void runOpenLoop(Duration duration, Recorder recorder) throws InterruptedException {
+        long intervalNanos = (long) (1e9 / options.rate());
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        Semaphore outstanding = new Semaphore(options.maxOutstanding());
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!outstanding.tryAcquire()) {
+                // Too far behind to keep the schedule; count it rather than block the generator
+                recorder.error();
+                continue;
+            }
+            CompletableFuture<HttpResponse<Void>> call = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            call.whenComplete((response, error) -> {
+                outstanding.release();
+                complete(recorder, scheduled, response, error);
+            });
+        }
+        // Let the requests still in flight finish within the timeout
+        outstanding.tryAcquire(options.maxOutstanding(), options.timeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void complete(Recorder recorder, long start, HttpResponse<Void> response, Throwable error) {
+        if (error != null || response.statusCode() >= 400) {
+            recorder.error();
+            return;
+        }
+        recorder.record(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,315 @@
+package com.agentweave.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the MCP server, speaking the streamable HTTP JSON-RPC protocol
+ * Serves the hello tool and a synthetic readOutlookEmails mailbox, answering either with
+ * application/json or text/event-stream. Latency, JSON-RPC and HTTP error rates, progress
+ * notifications and slow-drip streaming of the result event can be injected, so the app
+ * can be load-tested offline and reproducibly.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec@mcp-stand-in -Dstandin.args="--mode=sse --latency=lognormal:20ms:200ms"
+ */
+public final class McpStandInServer implements AutoCloseable {
+
+    /**
+     * Stand-in settings; see {@link #parse(String[])} for the command-line form
+     */
+    public record Options(int port,
+                          boolean sse,
+                          int mailboxSize,
+                          String helloText,
+                          LatencyDistribution latency,
+                          double errorRate,
+                          double httpErrorRate,
+                          int progressSteps,
+                          int dripChunkBytes,
+                          Duration dripInterval) {
+
+        /**
+         * Defaults: port 9091, JSON mode, 1,000 emails, no latency, faults or drip
+         */
+        public static Options defaults() {
+            return new Options(9091, false, 1000, "hello world", LatencyDistribution.parse("none"),
+                0, 0, 0, 0, Duration.ZERO);
+        }
+
+        /**
+         * Parse --key=value arguments over the defaults:
+         * --port, --mode=json|sse, --mailbox, --hello, --latency, --error-rate,
+         * --http-error-rate, --progress, --drip-chunk (bytes), --drip-interval
+         */
+        public static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+                values.put(pair[0], pair.length > 1 ? pair[1] : "true");
+            }
+            Options defaults = defaults();
+            Options options = new Options(
+                Integer.parseInt(values.getOrDefault("port", String.valueOf(defaults.port))),
+                "sse".equalsIgnoreCase(values.getOrDefault("mode", "json")),
+                Integer.parseInt(values.getOrDefault("mailbox", String.valueOf(defaults.mailboxSize))),
+                values.getOrDefault("hello", defaults.helloText),
+                LatencyDistribution.parse(values.getOrDefault("latency", "none")),
+                Double.parseDouble(values.getOrDefault("error-rate", "0")),
+                Double.parseDouble(values.getOrDefault("http-error-rate", "0")),
+                Integer.parseInt(values.getOrDefault("progress", "0")),
+                Integer.parseInt(values.getOrDefault("drip-chunk", "0")),
+                LatencyDistribution.parseDuration(values.getOrDefault("drip-interval", "0ms")));
+            values.keySet().removeAll(List.of("port", "mode", "mailbox", "hello", "latency", "error-rate",
+                "http-error-rate", "progress", "drip-chunk", "drip-interval"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            return options;
+        }
+    }
+
+    private static final String SESSION_HEADER = "Mcp-Session-Id";
+    private static final byte[] RESULT_TAIL = "}],\"isError\":false}}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Options options;
+    private final List<String> mailbox;
+    // Tool results pre-encoded as JSON strings, keyed by tool and result size
+    private final Map<String, byte[]> encodedResults = new ConcurrentHashMap<>();
+    private final DisposableServer server;
+
+    public McpStandInServer(Options options) {
+        this.options = options;
+        this.mailbox = syntheticMailbox(options.mailboxSize());
+        this.server = HttpServer.create()
+            .host("127.0.0.1")
+            .port(options.port())
+            .route(routes -> routes
+                .post("/mcp", (request, response) -> request.receive().aggregate().asString()
+                    .flatMap(body -> Mono.from(handle(body, response))))
+                .delete("/mcp", (request, response) -> response.status(HttpResponseStatus.OK).send()))
+            .bindNow();
+    }
+
+    public static void main(String[] args) {
+        Options options = Options.parse(args);
+        try (McpStandInServer server = new McpStandInServer(options)) {
+            System.out.println("MCP stand-in listening on " + server.url() + " (" + (options.sse() ? "sse" : "json")
+                + ", " + options.mailboxSize() + " emails)");
+            server.server.onDispose().block();
+        }
+    }
+
+    /**
+     * @return Endpoint URL for mcp.server.url
+     */
+    public String url() {
+        return "http://127.0.0.1:" + server.port() + "/mcp";
+    }
+
+    private Publisher<Void> handle(String body, HttpServerResponse response) {
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(body);
+        } catch (Exception e) {
+            return response.status(HttpResponseStatus.BAD_REQUEST).send();
+        }
+
+        if (request.isArray()) {
+            // JSON-RPC batch: answer every call in one JSON array, after the slowest delay
+            List<Mono<byte[]>> answers = new ArrayList<>();
+            request.forEach(call -> answers.add(answer(call)));
+            return Flux.mergeSequential(answers)
+                .collectList()
+                .flatMap(parts -> json(response, joinArray(parts)));
+        }
+
+        String method = request.path("method").asText();
+        if (method.startsWith("notifications/")) {
+            return response.status(HttpResponseStatus.ACCEPTED).send();
+        }
+        if (method.equals("initialize")) {
+            String version = request.path("params").path("protocolVersion").asText("2025-03-26");
+            String result = "{\"jsonrpc\":\"2.0\",\"id\":" + request.path("id") + ",\"result\":{\"protocolVersion\":\""
+                + version + "\",\"capabilities\":{\"tools\":{}},\"serverInfo\":{\"name\":\"mcp-stand-in\",\"version\":\"1\"}}}";
+            return json(response.header(SESSION_HEADER, UUID.randomUUID().toString()),
+                result.getBytes(StandardCharsets.UTF_8));
+        }
+        if (method.equals("ping")) {
+            // Health checks are answered at once, without injected latency or faults
+            return json(response, ("{\"jsonrpc\":\"2.0\",\"id\":" + request.path("id") + ",\"result\":{}}")
+                .getBytes(StandardCharsets.UTF_8));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < options.httpErrorRate()) {
+            return Mono.delay(Duration.ofNanos(options.latency().sampleNanos(random)))
+                .then(response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send());
+        }
+        if (!options.sse()) {
+            return answer(request).flatMap(bytes -> json(response, bytes));
+        }
+        return answer(request).flatMapMany(bytes -> eventStream(response, request, bytes));
+    }
+
+    /**
+     * Produce the JSON-RPC response for one call after the injected latency
+     */
+    private Mono<byte[]> answer(JsonNode call) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Duration delay = Duration.ofNanos(options.latency().sampleNanos(random));
+        String id = call.path("id").toString();
+        byte[] bytes;
+        if (random.nextDouble() < options.errorRate()) {
+            bytes = error(id, -32603, "Injected failure");
+        } else if (!"tools/call".equals(call.path("method").asText())) {
+            bytes = error(id, -32601, "Method not found");
+        } else {
+            JsonNode params = call.path("params");
+            byte[] text = resultText(params.path("name").asText(), params.path("arguments"));
+            bytes = text != null ? result(id, text) : error(id, -32602, "Unknown tool: " + params.path("name").asText());
+        }
+        return delay.isZero() ? Mono.just(bytes) : Mono.delay(delay).thenReturn(bytes);
+    }
+
+    private byte[] resultText(String tool, JsonNode arguments) {
+        return switch (tool) {
+            case "hello" -> encodedResults.computeIfAbsent("hello", key -> encode(options.helloText()));
+            case "readOutlookEmails" -> {
+                int count = Math.min(arguments.path("maxResults").asInt(10), mailbox.size());
+                yield encodedResults.computeIfAbsent("readOutlookEmails:" + count,
+                    key -> encode("[" + String.join(",", mailbox.subList(0, count)) + "]"));
+            }
+            default -> null;
+        };
+    }
+
+    private Publisher<Void> eventStream(HttpServerResponse response, JsonNode request, byte[] message) {
+        String token = request.path("params").path("_meta").path("progressToken").asText(null);
+        List<String> events = new ArrayList<>();
+        for (int step = 1; token != null && step <= options.progressSteps(); step++) {
+            events.add("event: message\ndata: {\"jsonrpc\":\"2.0\",\"method\":\"notifications/progress\",\"params\":"
+                + "{\"progressToken\":\"" + token + "\",\"progress\":" + step + ",\"total\":" + options.progressSteps()
+                + "}}\n\n");
+        }
+        events.add("event: message\ndata: " + new String(message, StandardCharsets.UTF_8) + "\n\n");
+
+        Flux<String> body = Flux.fromIterable(events);
+        if (options.dripChunkBytes() > 0) {
+            // Slow drip: cut the stream into small chunks and pause between them
+            body = body.concatMap(event -> Flux.fromIterable(chunks(event, options.dripChunkBytes())))
+                .delayElements(options.dripInterval());
+        }
+        return response
+            .header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream")
+            .sendString(body);
+    }
+
+    private static Mono<Void> json(HttpServerResponse response, byte[] body) {
+        return response
+            .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+            .sendByteArray(Mono.just(body))
+            .then();
+    }
+
+    private byte[] encode(String text) {
+        try {
+            return objectMapper.writeValueAsBytes(text);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] result(String id, byte[] encodedText) {
+        byte[] head = ("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":{\"content\":[{\"type\":\"text\",\"text\":")
+            .getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[head.length + encodedText.length + RESULT_TAIL.length];
+        System.arraycopy(head, 0, out, 0, head.length);
+        System.arraycopy(encodedText, 0, out, head.length, encodedText.length);
+        System.arraycopy(RESULT_TAIL, 0, out, head.length + encodedText.length, RESULT_TAIL.length);
+        return out;
+    }
+
+    private byte[] error(String id, int code, String message) {
+        return ("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"error\":{\"code\":" + code + ",\"message\":"
+            + new String(encode(message), StandardCharsets.UTF_8) + "}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] joinArray(List<byte[]> parts) {
+        int length = parts.size() + 1;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] out = new byte[length];
+        int position = 0;
+        out[position++] = '[';
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) {
+                out[position++] = ',';
+            }
+            System.arraycopy(parts.get(i), 0, out, position, parts.get(i).length);
+            position += parts.get(i).length;
+        }
+        out[position] = ']';
+        return out;
+    }
+
+    private static List<String> chunks(String text, int size) {
+        List<String> chunks = new ArrayList<>(text.length() / size + 1);
+        for (int start = 0; start < text.length(); start += size) {
+            chunks.add(text.substring(start, Math.min(text.length(), start + size)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Deterministic Graph-style message listing, one JSON object per email
+     */
+    public static List<String> syntheticMailbox(int size) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> emails = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> email = new LinkedHashMap<>();
+            email.put("id", "AAMkAGI2TG93AAA=" + i);
+            email.put("subject", "Quarterly report follow-up #" + i);
+            email.put("from", Map.of("emailAddress", Map.of("name", "Sender " + (i % 50),
+                "address", "sender" + (i % 50) + "@example.com")));
+            email.put("toRecipients", List.of(Map.of("emailAddress", Map.of("name", "Me",
+                "address", "me@example.com"))));
+            email.put("receivedDateTime", "2024-01-" + String.format("%02d", 1 + i % 28) + "T09:30:00Z");
+            email.put("parentFolderId", "inbox");
+            email.put("bodyPreview", "Hi team, please find the numbers for item " + i
+                + " attached. Let me know if anything looks off before Friday's review.");
+            try {
+                emails.add(objectMapper.writeValueAsString(email));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return emails;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,55 @@
+package com.agentweave.mcp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * McpClient wiring for benchmarks, without a Spring context
+ * Caching, coalescing and batching are off so every call makes a real round trip, and the
+ * limiter, circuit breaker and hedging are off so they never reject or duplicate a call.
+ */
+public final class BenchmarkClients {
+
+    private BenchmarkClients() {
+    }
+
+    /**
+     * @param url MCP endpoint, e.g. an McpStandInServer URL
+     * @param maxConnections Connection pool size; the pending-acquire queue is 100x that
+     */
+    public static McpClient create(String url, int maxConnections) {
+        return create(List.of(url), maxConnections, new McpRoutingProperties());
+    }
+
+    /**
+     * @param urls MCP endpoints to balance across
+     * @param maxConnections Connection pool size; the pending-acquire queue is 100x that
+     * @param routing Routing strategy and health checking across the endpoints
+     */
+    public static McpClient create(List<String> urls, int maxConnections, McpRoutingProperties routing) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        McpCacheProperties cacheProperties = new McpCacheProperties();
+        cacheProperties.setEnabled(false);
+        McpConnectionPool connectionPool = new McpConnectionPool(meterRegistry, maxConnections,
+            maxConnections * 100, Duration.ofSeconds(30), Duration.ofSeconds(30), Duration.ofMinutes(5),
+            Duration.ofSeconds(30), Duration.ofSeconds(2), false);
+        return new McpClient(urls, "2025-03-26", false, Duration.ofMillis(2), 32, DataSize.ofMegabytes(16),
+            Duration.ofSeconds(30), false,
+            connectionPool,
+            new McpToolCache(cacheProperties, meterRegistry),
+            new McpSingleFlight(false, List.of(), 0, Duration.ofSeconds(30)),
+            new McpConcurrencyLimiter(meterRegistry, false, 100, 10, 1000, 0.9, Duration.ofSeconds(5)),
+            new McpCircuitBreaker(meterRegistry, false, 50, 20, 0.5, Duration.ofSeconds(10), 3, Duration.ofSeconds(5)),
+            new McpHedging(meterRegistry, false, List.of(), 0.95, Duration.ofMillis(10), 0.1),
+            routing,
+            new McpAllocationMeter(meterRegistry, false),
+            new McpTrafficLogger(0, Duration.ofMinutes(1), 0),
+            meterRegistry,
+            ObservationRegistry.NOOP);
+    }
+}
@@ -0,0 +1,106 @@
+package com.agentweave.mcp;
+
+import com.agentweave.loadtest.McpStandInServer;
+import com.agentweave.mail.Email;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-RPC request building and response extraction, as done by McpClient for every call
+ * Responses are readOutlookEmails payloads of 10, 1,000 and 10,000 emails, delivered as
+ * application/json or as a single text/event-stream event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class McpCodecBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int emails;
+
+    @Param({"application/json", "text/event-stream"})
+    public String contentType;
+
+    // Same buffer limit as McpClient's WebClient (mcp.http.max-in-memory-size)
+    private static final ExchangeStrategies STRATEGIES = ExchangeStrategies.builder()
+        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+        .build();
+
+    private McpRequestWriter requestWriter;
+    private McpResponseDecoder responseDecoder;
+    private Map<String, Object> arguments;
+    private byte[] responseBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        requestWriter = new McpRequestWriter(objectMapper);
+        responseDecoder = new McpResponseDecoder(objectMapper,
+            new McpAllocationMeter(new SimpleMeterRegistry(), false));
+
+        arguments = new LinkedHashMap<>();
+        arguments.put("maxResults", emails);
+        arguments.put("folderId", "inbox");
+
+        String text = "[" + String.join(",", McpStandInServer.syntheticMailbox(emails)) + "]";
+        String message = objectMapper.writeValueAsString(Map.of(
+            "jsonrpc", "2.0",
+            "id", 1,
+            "result", Map.of("content", List.of(Map.of("type", "text", "text", text)), "isError", false)));
+        String body = contentType.equals("text/event-stream")
+            ? "event: message\ndata: " + message + "\n\n"
+            : message;
+        responseBody = body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] buildRequest() {
+        return requestWriter.writeToolCall(1L, "readOutlookEmails", arguments);
+    }
+
+    @Benchmark
+    public McpMessage<String> extractText() {
+        return responseDecoder.decode(response(), ToolResultReader.TEXT, "readOutlookEmails").blockLast();
+    }
+
+    @Benchmark
+    public McpMessage<List<Email>> extractEmails() {
+        return responseDecoder.decode(response(), McpEmailReader.INSTANCE, "readOutlookEmails").blockLast();
+    }
+
+    private ClientResponse response() {
+        // Wrapping is allocation-light, so the decoder dominates the measurement
+        Flux<DataBuffer> body = Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(responseBody)));
+        return ClientResponse.create(HttpStatus.OK, STRATEGIES)
+            .header(HttpHeaders.CONTENT_TYPE, contentType)
+            .body(body)
+            .build();
+    }
+}
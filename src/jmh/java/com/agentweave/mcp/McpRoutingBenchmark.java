@@ -0,0 +1,70 @@
+package com.agentweave.mcp;
+
+import com.agentweave.loadtest.McpStandInServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tool-call latency across three MCP replicas, one of them degraded
+ * Two stand-ins answer with a median of 10ms, the third with a median of 60ms and a long tail,
+ * as a replica with a noisy neighbour would. Round-robin sends a third of all calls to the slow
+ * replica; power of two choices on EWMA latency and calls in flight mostly avoids it. Compare
+ * the p50/p99 of the sample-time results and the total sample counts (throughput).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(32)
+@Fork(1)
+public class McpRoutingBenchmark {
+
+    @Param({"P2C", "ROUND_ROBIN"})
+    public McpRoutingProperties.Strategy strategy;
+
+    private List<McpStandInServer> servers;
+    private McpClient mcpClient;
+
+    @Setup
+    public void setUp() {
+        servers = List.of(
+            standIn("lognormal:10ms:40ms"),
+            standIn("lognormal:10ms:40ms"),
+            standIn("lognormal:60ms:600ms"));
+        McpRoutingProperties routing = new McpRoutingProperties();
+        routing.setStrategy(strategy);
+        mcpClient = BenchmarkClients.create(servers.stream().map(McpStandInServer::url).toList(), 100, routing);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mcpClient.close();
+        servers.forEach(McpStandInServer::close);
+    }
+
+    @Benchmark
+    public String hello() {
+        return mcpClient.executeTool("hello", Map.of());
+    }
+
+    private static McpStandInServer standIn(String latency) {
+        return new McpStandInServer(McpStandInServer.Options.parse(
+            new String[] {"--port=0", "--latency=" + latency}));
+    }
+}
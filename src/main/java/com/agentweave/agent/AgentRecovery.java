@@ -0,0 +1,86 @@
+package com.agentweave.agent;
+
+import com.agentweave.agent.checkpoint.FileCheckpointSaver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup recovery of agent runs cut short by the last shutdown or crash
+ * Each interrupted hello run is resumed in the background from its last checkpoint; startup
+ * does not wait for them. The resumes queue in the agent scheduler's bulk lane like a batch, so
+ * a crash with many runs in flight does not start them all at once against the MCP server.
+ * Threads no agent recognizes are released, so they do not linger.
+ */
+public class AgentRecovery implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentRecovery.class);
+
+    private final HelloAgent helloAgent;
+    private final FileCheckpointSaver checkpointSaver;
+    private final MeterRegistry meterRegistry;
+    private final Duration runBudget;
+
+    /**
+     * @param runBudget Time budget of each resumed run, from when it is started
+     */
+    public AgentRecovery(HelloAgent helloAgent, FileCheckpointSaver checkpointSaver, MeterRegistry meterRegistry,
+                         Duration runBudget) {
+        this.helloAgent = helloAgent;
+        this.checkpointSaver = checkpointSaver;
+        this.meterRegistry = meterRegistry;
+        this.runBudget = runBudget;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> resumable = new ArrayList<>();
+        for (String threadId : checkpointSaver.interruptedThreads()) {
+            if (!threadId.startsWith(HelloAgent.THREAD_PREFIX)) {
+                logger.warn("Releasing checkpoints of unknown agent run {}", threadId);
+                release(threadId);
+                continue;
+            }
+            resumable.add(threadId);
+        }
+        if (resumable.isEmpty()) {
+            return;
+        }
+        logger.info("Resuming {} interrupted agent run(s) from their last checkpoint", resumable.size());
+        helloAgent.resumeAll(resumable, runBudget).subscribe(
+            result -> {
+                String threadId = resumable.get((int) result.index());
+                if (result.error() != null) {
+                    logger.warn("Resumed agent run {} failed: {}", threadId, result.error());
+                } else {
+                    logger.debug("Resumed agent run {} completed", threadId);
+                }
+                outcome(result.error() == null ? "completed" : "failed").increment();
+            },
+            error -> logger.warn("Could not resume interrupted agent runs: {}", error.getMessage()));
+    }
+
+    private void release(String threadId) {
+        try {
+            checkpointSaver.release(RunnableConfig.builder().threadId(threadId).build());
+        } catch (Exception e) {
+            logger.warn("Error releasing checkpoints of run {}: {}", threadId, e.getMessage());
+        }
+    }
+
+    private Counter outcome(String outcome) {
+        return Counter.builder("agent.resumed")
+            .description("Interrupted agent runs resumed at startup, by outcome")
+            .tag("graph", HelloAgent.GRAPH_NAME)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
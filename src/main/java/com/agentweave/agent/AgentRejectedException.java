@@ -0,0 +1,12 @@
+package com.agentweave.agent;
+
+/**
+ * Agent run refused by the scheduler because its queue is full
+ * Raised at once instead of queueing without bound, so callers can back off and retry.
+ */
+public class AgentRejectedException extends RuntimeException {
+
+    public AgentRejectedException(String message) {
+        super(message);
+    }
+}
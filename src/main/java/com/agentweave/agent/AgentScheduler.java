@@ -0,0 +1,404 @@
+package com.agentweave.agent;
+
+import com.agentweave.mcp.McpDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Admission scheduler for agent runs, with bounded parallelism
+ * At most max-concurrent runs are in flight at once, which bounds the MCP calls they make.
+ * Waiting runs are queued in two lanes:
+ * <ul>
+ *   <li>Interactive: single requests, first in first out, always started before any bulk run.
+ *       The last interactive-reserved slots are kept for them, so an interactive request does
+ *       not wait for a bulk run to finish.</li>
+ *   <li>Bulk: batch inputs, one queue per client, served round-robin, so a client with a large
+ *       batch shares the bulk slots equally with a client sending a small one.</li>
+ * </ul>
+ * Nothing queues without bound: a full interactive queue, or more open batches than
+ * max-batches, is rejected at once with {@link AgentRejectedException}. A batch has at most
+ * batch-window inputs queued or running; the next ones are taken as results are consumed.
+ * A run is started on the thread that queues it or frees its slot, so starting a run must not
+ * block: the agents hand each run to their run executor and return its future at once.
+ */
+public class AgentScheduler implements AutoCloseable {
+
+    /**
+     * Queue a run waits in
+     */
+    public enum Lane {
+        INTERACTIVE, BULK
+    }
+
+    private final int maxConcurrent;
+    private final int bulkConcurrent;
+    private final int maxQueued;
+    private final int batchWindow;
+    private final int maxBatches;
+    private final int maxBulkQueued;
+
+    private volatile boolean closed;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Task<?>> interactive = new ArrayDeque<>();
+    // Clients with queued bulk runs, in the order they are served
+    private final ArrayDeque<String> clients = new ArrayDeque<>();
+    private final Map<String, ArrayDeque<Task<?>>> bulk = new HashMap<>();
+    private int bulkQueued;
+    private int running;
+    // Threads that found work to start while another thread was starting runs
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+    private final AtomicInteger openBatches = new AtomicInteger();
+
+    private final Timer interactiveWait;
+    private final Timer bulkWait;
+    private final Counter interactiveRejected;
+    private final Counter bulkRejected;
+
+    /**
+     * @param maxConcurrent Runs in flight at once, across both lanes
+     * @param interactiveReserved Slots bulk runs leave free for interactive ones
+     * @param maxQueued Interactive runs waiting at most
+     * @param batchWindow Inputs of one batch queued or running at most
+     * @param maxBatches Batches open at once
+     */
+    public AgentScheduler(MeterRegistry meterRegistry, int maxConcurrent, int interactiveReserved, int maxQueued,
+                          int batchWindow, int maxBatches) {
+        if (maxConcurrent < 1 || interactiveReserved < 0 || interactiveReserved >= maxConcurrent) {
+            throw new IllegalArgumentException("Need 1 <= max-concurrent and 0 <= interactive-reserved < max-concurrent: "
+                + maxConcurrent + ", " + interactiveReserved);
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.bulkConcurrent = maxConcurrent - interactiveReserved;
+        this.maxQueued = maxQueued;
+        this.batchWindow = Math.max(1, batchWindow);
+        this.maxBatches = maxBatches;
+        this.maxBulkQueued = this.batchWindow * maxBatches;
+
+        Gauge.builder("agent.scheduler.running", this, AgentScheduler::running)
+            .description("Agent runs in flight")
+            .register(meterRegistry);
+        Gauge.builder("agent.scheduler.queued", this, scheduler -> scheduler.queued(Lane.INTERACTIVE))
+            .description("Agent runs waiting for a slot")
+            .tag("lane", "interactive")
+            .register(meterRegistry);
+        Gauge.builder("agent.scheduler.queued", this, scheduler -> scheduler.queued(Lane.BULK))
+            .description("Agent runs waiting for a slot")
+            .tag("lane", "bulk")
+            .register(meterRegistry);
+        Gauge.builder("agent.scheduler.batches", openBatches, AtomicInteger::get)
+            .description("Batches being run")
+            .register(meterRegistry);
+        this.interactiveWait = waitTimer(meterRegistry, "interactive");
+        this.bulkWait = waitTimer(meterRegistry, "bulk");
+        this.interactiveRejected = rejectedCounter(meterRegistry, "interactive");
+        this.bulkRejected = rejectedCounter(meterRegistry, "bulk");
+    }
+
+    /**
+     * Run in the interactive lane
+     * The MCP deadline current on the calling thread applies to the run; a run whose deadline
+     * passes while it waits fails with a TimeoutException without being started.
+     *
+     * @param run Starts the run and returns its future
+     * @return Future completing with the run's result; cancelling it while queued drops the run
+     */
+    public <T> CompletableFuture<T> submitInteractive(Supplier<CompletableFuture<T>> run) {
+        return submit(Lane.INTERACTIVE, null, run);
+    }
+
+    /**
+     * Run in the bulk lane, queued behind the client's earlier bulk runs
+     *
+     * @param clientId Client the run is queued for
+     * @param run Starts the run and returns its future
+     * @return Future completing with the run's result; cancelling it while queued drops the run
+     */
+    public <T> CompletableFuture<T> submitBulk(String clientId, Supplier<CompletableFuture<T>> run) {
+        return submit(Lane.BULK, clientId, run);
+    }
+
+    /**
+     * Run every input in the bulk lane
+     * Inputs are read as the batch window frees up, so a slow consumer of the results slows
+     * down the batch instead of results piling up. A failed run is reported as a result with
+     * an error; the batch goes on.
+     *
+     * @param clientId Client the batch is queued for
+     * @param inputs Batch inputs
+     * @param run Starts the run of one input and returns its future
+     * @return Results in completion order, each with the index of its input
+     */
+    public <I, T> Flux<BatchResult<T>> submitBatch(String clientId, Flux<I> inputs,
+                                                   Function<I, CompletableFuture<T>> run) {
+        return Flux.defer(() -> {
+            if (!tryOpenBatch()) {
+                bulkRejected.increment();
+                return Flux.error(new AgentRejectedException("Too many batches running (" + maxBatches + ")"));
+            }
+            return inputs.index()
+                .flatMap(indexed -> Mono.fromFuture(() -> submitBulk(clientId, () -> run.apply(indexed.getT2())))
+                    .map(result -> BatchResult.success(indexed.getT1(), result))
+                    .onErrorResume(e -> Mono.just(BatchResult.failure(indexed.getT1(), e))), batchWindow)
+                .doFinally(signal -> openBatches.decrementAndGet());
+        });
+    }
+
+    /**
+     * @return Runs in flight
+     */
+    public int running() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Runs waiting in the lane
+     */
+    public int queued(Lane lane) {
+        lock.lock();
+        try {
+            return lane == Lane.INTERACTIVE ? interactive.size() : bulkQueued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private <T> CompletableFuture<T> submit(Lane lane, String clientId, Supplier<CompletableFuture<T>> run) {
+        Task<T> task = new Task<>(lane, clientId, run, McpDeadline.current(), System.nanoTime());
+        lock.lock();
+        try {
+            if (lane == Lane.INTERACTIVE) {
+                if (interactive.size() >= maxQueued) {
+                    interactiveRejected.increment();
+                    return CompletableFuture.failedFuture(new AgentRejectedException(
+                        "Agent queue is full (" + maxQueued + " runs waiting)"));
+                }
+                interactive.add(task);
+            } else {
+                if (bulkQueued >= maxBulkQueued) {
+                    bulkRejected.increment();
+                    return CompletableFuture.failedFuture(new AgentRejectedException(
+                        "Agent bulk queue is full (" + maxBulkQueued + " runs waiting)"));
+                }
+                ArrayDeque<Task<?>> queue = bulk.get(clientId);
+                if (queue == null) {
+                    queue = new ArrayDeque<>();
+                    bulk.put(clientId, queue);
+                    clients.add(clientId);
+                }
+                queue.add(task);
+                bulkQueued++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // An abandoned run leaves the queue at once, so it does not count against max-queued
+        task.result.whenComplete((value, error) -> {
+            if (task.result.isCancelled()) {
+                dequeue(task);
+            }
+        });
+        dispatch();
+        return task.result;
+    }
+
+    private void dequeue(Task<?> task) {
+        lock.lock();
+        try {
+            if (task.lane == Lane.INTERACTIVE) {
+                interactive.remove(task);
+                return;
+            }
+            ArrayDeque<Task<?>> queue = bulk.get(task.clientId);
+            if (queue != null && queue.remove(task)) {
+                bulkQueued--;
+                if (queue.isEmpty()) {
+                    bulk.remove(task.clientId);
+                    clients.remove(task.clientId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start queued runs while slots are free
+     * Only one thread dispatches at a time; a thread that finds it busy leaves its share to it.
+     */
+    private void dispatch() {
+        if (dispatchRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        while (true) {
+            Task<?> task;
+            while ((task = next()) != null) {
+                start(task);
+            }
+            requests = dispatchRequests.addAndGet(-requests);
+            if (requests == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Take the next run to start and its slot
+     *
+     * @return Run to start, or null if none is waiting or no slot is free for it
+     */
+    private Task<?> next() {
+        lock.lock();
+        try {
+            while (running < maxConcurrent) {
+                Task<?> task = interactive.poll();
+                if (task == null && running < bulkConcurrent) {
+                    task = nextBulk();
+                }
+                if (task == null) {
+                    return null;
+                }
+                // Skip runs cancelled while queued
+                if (!task.result.isDone()) {
+                    running++;
+                    return task;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Task<?> nextBulk() {
+        String clientId = clients.poll();
+        if (clientId == null) {
+            return null;
+        }
+        ArrayDeque<Task<?>> queue = bulk.get(clientId);
+        Task<?> task = queue.poll();
+        bulkQueued--;
+        // Back of the line for the client's next run
+        if (queue.isEmpty()) {
+            bulk.remove(clientId);
+        } else {
+            clients.add(clientId);
+        }
+        return task;
+    }
+
+    private <T> void start(Task<T> task) {
+        (task.lane == Lane.INTERACTIVE ? interactiveWait : bulkWait)
+            .record(System.nanoTime() - task.queuedNanos, TimeUnit.NANOSECONDS);
+        if (closed) {
+            release();
+            task.result.completeExceptionally(new RejectedExecutionException("Agent scheduler is closed"));
+            return;
+        }
+        run(task);
+    }
+
+    private <T> void run(Task<T> task) {
+        CompletableFuture<T> future;
+        Duration remaining = task.deadline != null ? task.deadline.remaining() : null;
+        if (remaining != null && (remaining.isNegative() || remaining.isZero())) {
+            future = CompletableFuture.failedFuture(new TimeoutException("Deadline exceeded while queued for an agent run"));
+        } else {
+            try {
+                future = McpDeadline.call(task.deadline, task.run);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+        }
+        future.whenComplete((value, error) -> {
+            release();
+            if (error != null) {
+                task.result.completeExceptionally(error);
+            } else {
+                task.result.complete(value);
+            }
+        });
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            running--;
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    private boolean tryOpenBatch() {
+        while (true) {
+            int current = openBatches.get();
+            if (current >= maxBatches) {
+                return false;
+            }
+            if (openBatches.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String lane) {
+        return Timer.builder("agent.scheduler.wait")
+            .description("Time agent runs wait for a slot")
+            .tag("lane", lane)
+            .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String lane) {
+        return Counter.builder("agent.scheduler.rejected")
+            .description("Agent runs and batches rejected because the queue was full")
+            .tag("lane", lane)
+            .register(meterRegistry);
+    }
+
+    private static final class Task<T> {
+
+        private final Lane lane;
+        private final String clientId;
+        private final Supplier<CompletableFuture<T>> run;
+        private final McpDeadline deadline;
+        private final long queuedNanos;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(Lane lane, String clientId, Supplier<CompletableFuture<T>> run, McpDeadline deadline,
+                     long queuedNanos) {
+            this.lane = lane;
+            this.clientId = clientId;
+            this.run = run;
+            this.deadline = deadline;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.agentweave.agent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup warm-up for the agents
+ * Runs a few invocations against the configured MCP server before the application
+ * reports itself ready, so JIT compilation and connection setup are not paid by the
+ * first real request
+ */
+public class AgentWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentWarmup.class);
+
+    private final HelloAgent helloAgent;
+    private final MeterRegistry meterRegistry;
+    private final int iterations;
+    private final String name;
+
+    public AgentWarmup(HelloAgent helloAgent, MeterRegistry meterRegistry, int iterations, String name) {
+        this.helloAgent = helloAgent;
+        this.meterRegistry = meterRegistry;
+        this.iterations = iterations;
+        this.name = name;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        int completed = 0;
+        for (int i = 0; i < iterations; i++) {
+            try {
+                helloAgent.greet(name);
+                completed++;
+            } catch (Exception e) {
+                // The MCP server may not be up yet; warm-up is best effort and must not block startup
+                logger.warn("Agent warm-up stopped after {} invocation(s): {}", completed, e.getMessage());
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Timer.builder("agent.warmup")
+            .description("Time spent warming up agents at startup")
+            .tag("graph", HelloAgent.GRAPH_NAME)
+            .register(meterRegistry)
+            .record(elapsed, TimeUnit.NANOSECONDS);
+        logger.info("Agent warm-up completed {} of {} invocation(s) in {} ms",
+            completed, iterations, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+}
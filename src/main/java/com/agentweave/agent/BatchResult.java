@@ -0,0 +1,19 @@
+package com.agentweave.agent;
+
+/**
+ * Outcome of one input of a batch
+ *
+ * @param index Position of the input in the batch
+ * @param result Result of the run, or null if it failed
+ * @param error Error message of a failed run, or null
+ */
+public record BatchResult<T>(long index, T result, String error) {
+
+    public static <T> BatchResult<T> success(long index, T result) {
+        return new BatchResult<>(index, result, null);
+    }
+
+    public static <T> BatchResult<T> failure(long index, Throwable error) {
+        return new BatchResult<>(index, null, error.getMessage() != null ? error.getMessage() : error.toString());
+    }
+}
@@ -0,0 +1,38 @@
+package com.agentweave.agent;
+
+import org.bsc.async.AsyncGenerator;
+import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Helpers for consuming the node outputs of a streamed graph run
+ */
+final class GraphOutputs {
+
+    private GraphOutputs() {
+    }
+
+    /**
+     * Drain the outputs and complete with the state of the last one, as invoke() returns
+     * The generator's next() waits for each step's node futures, so the whole run is driven on
+     * the calling thread and an observation scope open there is seen by every node: call it
+     * from a thread that may block until the run ends. AsyncGenerator.reduce is not used: some
+     * async-generator releases recurse with the identity instead of the accumulated value.
+     * 
+     * @param outputs Node outputs of one run
+     * @return Future completing with the final state, or null if the run produced no output
+     */
+    static <S extends AgentState> CompletableFuture<S> lastState(AsyncGenerator<NodeOutput<S>> outputs) {
+        return drain(outputs, null);
+    }
+
+    private static <S extends AgentState> CompletableFuture<S> drain(AsyncGenerator<NodeOutput<S>> outputs, S last) {
+        AsyncGenerator.Data<NodeOutput<S>> data = outputs.next();
+        if (data.isDone()) {
+            return CompletableFuture.completedFuture(last);
+        }
+        return data.future().thenCompose(output -> drain(outputs, output.state()));
+    }
+}
@@ -1,26 +1,103 @@
 package com.agentweave.agent;
 
+import com.agentweave.agent.checkpoint.FileCheckpointSaver;
 import com.agentweave.agent.node.HelloNode;
 import com.agentweave.agent.state.HelloState;
 import com.agentweave.mcp.McpClient;
+import com.agentweave.mcp.McpDeadline;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphInput;
+import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.StateGraph;
 import org.bsc.langgraph4j.GraphStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * Hello agent implementation using LangGraph4j StateGraph
  * This agent uses MCP client to call MCP server's hello tool
+ * With a checkpoint saver, every run gets its own thread id and is checkpointed after each node.
+ * A run that completes or fails is released; one cut short by a restart can be resumed.
+ * With a scheduler, single requests and batches are admitted through its interactive and bulk lanes.
  */
 public class HelloAgent {
 
-    private final StateGraph<HelloState> stateGraph;
+    private static final Logger logger = LoggerFactory.getLogger(HelloAgent.class);
 
-    public HelloAgent(McpClient mcpClient) {
+    public static final String GRAPH_NAME = "hello";
+    // Thread ids of this agent's runs start with it, so they can be told apart after a restart
+    public static final String THREAD_PREFIX = GRAPH_NAME + "-";
+    // Scheduler client resumed runs are queued for, sharing the bulk lane with batch clients
+    public static final String RECOVERY_CLIENT_ID = "recovery";
+
+    private final CompiledGraph<HelloState> compiledGraph;
+    private final ObservationRegistry observationRegistry;
+    private final Executor runExecutor;
+    private final FileCheckpointSaver checkpointSaver;
+    private final AgentScheduler scheduler;
+
+    /**
+     * @param runExecutor Executor async runs are driven on; each run holds its thread until it ends
+     */
+    public HelloAgent(McpClient mcpClient, GraphRegistry graphRegistry, ObservationRegistry observationRegistry,
+                      Executor runExecutor) {
+        this(mcpClient, graphRegistry, observationRegistry, runExecutor, null, null);
+    }
+
+    /**
+     * @param runExecutor Executor async runs are driven on; each run holds its thread until it ends
+     * @param checkpointSaver Saver runs are checkpointed to (optional)
+     * @param scheduler Scheduler admitting submitted runs and batches (optional)
+     */
+    public HelloAgent(McpClient mcpClient, GraphRegistry graphRegistry, ObservationRegistry observationRegistry,
+                      Executor runExecutor, FileCheckpointSaver checkpointSaver, AgentScheduler scheduler) {
+        // Compile once here; the compiled graph is immutable and shared by all requests
+        this.compiledGraph = graphRegistry.register(GRAPH_NAME,
+            buildGraph(mcpClient, observationRegistry), compileConfig(checkpointSaver));
+        this.observationRegistry = observationRegistry;
+        this.runExecutor = runExecutor;
+        this.checkpointSaver = checkpointSaver;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Compile options: without a saver none; with one, each node's output is checkpointed and
+     * a run's checkpoints are released once it reaches END
+     */
+    static CompileConfig compileConfig(FileCheckpointSaver checkpointSaver) {
+        if (checkpointSaver == null) {
+            return CompileConfig.builder().build();
+        }
+        return CompileConfig.builder()
+            .checkpointSaver(checkpointSaver)
+            .releaseThread(true)
+            .build();
+    }
+
+    /**
+     * Build the state graph using LangGraph4j with MCP client
+     * 
+     * @param mcpClient MCP client used by the graph nodes
+     * @param observationRegistry Registry the nodes report their timings and spans to
+     * @return Uncompiled graph definition
+     */
+    static StateGraph<HelloState> buildGraph(McpClient mcpClient, ObservationRegistry observationRegistry) {
         try {
-            // Build the state graph using LangGraph4j with MCP client
-            this.stateGraph = new StateGraph<>(HelloState.SCHEMA, HelloState::new)
-                .addNode("hello", new HelloNode(mcpClient))
+            return new StateGraph<>(HelloState.SCHEMA, HelloState::new)
+                .addNode("hello", new HelloNode(mcpClient, observationRegistry))
                 .addEdge(StateGraph.START, "hello")
                 .addEdge("hello", StateGraph.END);
         } catch (GraphStateException e) {
@@ -35,26 +112,188 @@ public class HelloAgent {
      * @return Greeting message
      */
     public String greet(String name) {
+        // Create initial state as Map
+        var initialState = Map.<String, Object>of(HelloState.NAME_KEY, name);
+        
+        // Execute the graph
+        RunnableConfig config = newRun();
+        var resultStateOpt = graphObservation().observe(() -> {
+            try {
+                return compiledGraph.invoke(initialState, config);
+            } catch (RuntimeException e) {
+                release(config);
+                throw e;
+            }
+        });
+        
+        // Return the message from the final state
+        return resultStateOpt.map(HelloState::getMessage)
+            .orElse("Error: No result from agent");
+    }
+
+    /**
+     * Execute the agent graph without blocking the calling thread
+     * The run is driven on the run executor, whose thread waits in each step for the node's
+     * MCP call; the calling thread returns at once.
+     * 
+     * @param name Name to greet
+     * @return Future completing with the greeting message
+     */
+    public CompletableFuture<String> greetAsync(String name) {
+        var initialState = Map.<String, Object>of(HelloState.NAME_KEY, name);
+        return runAsync(GraphInput.args(initialState), newRun()).thenApply(HelloAgent::message);
+    }
+
+    /**
+     * Greet through the scheduler's interactive lane, ahead of any batch
+     * The MCP deadline current on the calling thread applies to the run, including its time in the queue.
+     * 
+     * @param name Name to greet
+     * @return Future completing with the greeting message, or failing with
+     *         {@link AgentRejectedException} if the queue is full
+     */
+    public CompletableFuture<String> submitGreet(String name) {
+        if (scheduler == null) {
+            return greetAsync(name);
+        }
+        return scheduler.submitInteractive(() -> greetAsync(name));
+    }
+
+    /**
+     * Execute the agent with full state without blocking the calling thread
+     * 
+     * @param input Input parameters for the agent
+     * @return Future completing with the result state
+     */
+    public CompletableFuture<HelloState> executeAsync(Map<String, Object> input) {
+        return runAsync(GraphInput.args(input), newRun())
+            .thenApply(state -> {
+                if (state == null) {
+                    throw new RuntimeException("Agent execution returned no result");
+                }
+                return state;
+            });
+    }
+
+    /**
+     * Execute the agent once per input through the scheduler's bulk lane
+     * Inputs are read as earlier runs complete and results are consumed, never all at once.
+     * 
+     * @param clientId Client the batch is queued for; clients share the bulk lane equally
+     * @param inputs Input parameters of each run
+     * @param runBudget Time budget of each run, from when it is started
+     * @return Result states in completion order, each with the index of its input; a failed run
+     *         is reported with its error. Fails with {@link AgentRejectedException} if too many
+     *         batches are running.
+     */
+    public Flux<BatchResult<HelloState>> executeBatch(String clientId, Flux<Map<String, Object>> inputs,
+                                                      Duration runBudget) {
+        if (scheduler == null) {
+            throw new IllegalStateException("Batches of the " + GRAPH_NAME + " agent need a scheduler");
+        }
+        // The budget starts when the run does, not when the batch is submitted
+        return scheduler.submitBatch(clientId, inputs,
+            input -> McpDeadline.call(McpDeadline.after(runBudget), () -> executeAsync(input)));
+    }
+
+    /**
+     * Continue a checkpointed run that was interrupted, from the node after its last checkpoint
+     *
+     * @param threadId Thread id of the run, one of the saver's interrupted threads
+     * @return Future completing with the greeting message
+     */
+    public CompletableFuture<String> resumeAsync(String threadId) {
+        if (checkpointSaver == null) {
+            throw new IllegalStateException("Runs of the " + GRAPH_NAME + " agent are not checkpointed");
+        }
+        return runAsync(GraphInput.resume(), RunnableConfig.builder().threadId(threadId).build())
+            .thenApply(HelloAgent::message);
+    }
+
+    /**
+     * Resume interrupted runs through the scheduler's bulk lane, as one batch of the recovery client
+     * Runs are started as earlier ones complete, never all at once.
+     *
+     * @param threadIds Thread ids of the runs, from the saver's interrupted threads
+     * @param runBudget Time budget of each run, from when it is started
+     * @return Greeting messages in completion order, each with the index of its thread id; a
+     *         failed run is reported with its error
+     */
+    public Flux<BatchResult<String>> resumeAll(List<String> threadIds, Duration runBudget) {
+        Function<String, CompletableFuture<String>> resume =
+            threadId -> McpDeadline.call(McpDeadline.after(runBudget), () -> resumeAsync(threadId));
+        if (scheduler == null) {
+            return Flux.fromIterable(threadIds)
+                .index()
+                .flatMap(indexed -> Mono.fromFuture(() -> resume.apply(indexed.getT2()))
+                    .map(message -> BatchResult.success(indexed.getT1(), message))
+                    .onErrorResume(e -> Mono.just(BatchResult.failure(indexed.getT1(), e))));
+        }
+        return scheduler.submitBatch(RECOVERY_CLIENT_ID, Flux.fromIterable(threadIds), resume);
+    }
+
+    private CompletableFuture<HelloState> runAsync(GraphInput input, RunnableConfig config) {
+        // Started here, so the run reports as a child of the caller's observation
+        Observation observation = graphObservation().start();
+        // Each step waits for its node's future on the thread driving the run, so the run is
+        // driven on the run executor; the deadline current here applies to it there
+        McpDeadline deadline = McpDeadline.current();
+        return CompletableFuture.supplyAsync(() -> {
+                try (Observation.Scope scope = observation.openScope()) {
+                    // Nodes started while the scope is open report as children of this run;
+                    // keep the state of the last node output, as invoke() does
+                    return McpDeadline.call(deadline,
+                        () -> GraphOutputs.lastState(compiledGraph.stream(input, config)));
+                }
+            }, runExecutor)
+            .thenCompose(Function.identity())
+            .whenComplete((state, error) -> {
+                if (error != null) {
+                    observation.error(error);
+                    release(config);
+                }
+                observation.stop();
+            });
+    }
+
+    private static String message(HelloState state) {
+        return state != null
+            ? state.getMessage()
+            : "Error: No result from agent";
+    }
+
+    /**
+     * Run config of a new run: a fresh thread id when runs are checkpointed
+     */
+    private RunnableConfig newRun() {
+        if (checkpointSaver == null) {
+            return RunnableConfig.builder().build();
+        }
+        return RunnableConfig.builder()
+            .threadId(THREAD_PREFIX + UUID.randomUUID())
+            .build();
+    }
+
+    /**
+     * Drop the checkpoints of a failed run: it was answered with an error and is not resumed
+     */
+    private void release(RunnableConfig config) {
+        if (checkpointSaver == null) {
+            return;
+        }
         try {
-            // Compile the graph
-            var compiledGraph = stateGraph.compile();
-            
-            // Create initial state as Map - appender channels expect lists
-            var initialState = Map.<String, Object>of(
-                HelloState.NAME_KEY, java.util.List.of(name)
-            );
-            
-            // Execute the graph
-            var resultStateOpt = compiledGraph.invoke(initialState);
-            
-            // Return the message from the final state
-            return resultStateOpt.map(HelloState::getMessage)
-                .orElse("Error: No result from agent");
-        } catch (GraphStateException e) {
-            throw new RuntimeException("Error executing agent graph", e);
+            checkpointSaver.release(config);
+        } catch (Exception e) {
+            logger.warn("Error releasing checkpoints of run {}: {}", config.threadId().orElse(null), e.getMessage());
         }
     }
 
+    private Observation graphObservation() {
+        return Observation.createNotStarted("agent.graph", observationRegistry)
+            .contextualName("graph " + GRAPH_NAME)
+            .lowCardinalityKeyValue("graph", GRAPH_NAME);
+    }
+
     /**
      * Execute the agent with full state and return the complete state
      * 
@@ -62,13 +301,16 @@ public class HelloAgent {
      * @return Result state containing all processed data
      */
     public HelloState execute(Map<String, Object> input) {
-        try {
-            var compiledGraph = stateGraph.compile();
-            var resultStateOpt = compiledGraph.invoke(input);
-            return resultStateOpt.orElseThrow(() -> 
-                new RuntimeException("Agent execution returned no result"));
-        } catch (GraphStateException e) {
-            throw new RuntimeException("Error executing agent graph", e);
-        }
+        RunnableConfig config = newRun();
+        var resultStateOpt = graphObservation().observe(() -> {
+            try {
+                return compiledGraph.invoke(input, config);
+            } catch (RuntimeException e) {
+                release(config);
+                throw e;
+            }
+        });
+        return resultStateOpt.orElseThrow(() -> 
+            new RuntimeException("Agent execution returned no result"));
     }
 }
@@ -0,0 +1,175 @@
+package com.agentweave.agent;
+
+import com.agentweave.agent.node.BranchPermits;
+import com.agentweave.agent.node.FetchFolderNode;
+import com.agentweave.agent.node.MergeMailNode;
+import com.agentweave.agent.state.MailState;
+import com.agentweave.mail.EmailField;
+import com.agentweave.mail.MailSync;
+import com.agentweave.mcp.McpDeadline;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.AsyncNodeAction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Mail agent reading several folders in parallel
+ * The graph fans out from START to one fetch node per folder and joins on a merge node, so
+ * reading N folders takes about as long as the slowest one. Folder sets come from requests, so
+ * a graph is built per distinct set and kept in a bounded cache of compiled graphs. Each step of a
+ * run waits for its fetch nodes on the thread driving the run, so runs are driven on the run
+ * executor, never on the caller's thread.
+ */
+public class MailAgent {
+
+    public static final String GRAPH_NAME = "mail";
+
+    private final MailSync mailSync;
+    private final GraphRegistry graphRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final Executor runExecutor;
+    private final int maxParallelism;
+    private final Duration branchTimeout;
+    private final Cache<List<String>, CompiledGraph<MailState>> graphs;
+
+    /**
+     * @param runExecutor Executor runs are driven on; each run holds its thread until it ends
+     * @param maxParallelism Maximum number of folders of one run read at the same time
+     * @param branchTimeout Time allowed for reading one folder
+     * @param maxCachedGraphs Maximum number of compiled graphs (distinct folder sets) kept
+     */
+    public MailAgent(MailSync mailSync, GraphRegistry graphRegistry, ObservationRegistry observationRegistry,
+                     Executor runExecutor, int maxParallelism, Duration branchTimeout, int maxCachedGraphs) {
+        this.mailSync = mailSync;
+        this.graphRegistry = graphRegistry;
+        this.observationRegistry = observationRegistry;
+        this.runExecutor = runExecutor;
+        this.maxParallelism = maxParallelism;
+        this.branchTimeout = branchTimeout;
+        this.graphs = Caffeine.newBuilder()
+            .maximumSize(maxCachedGraphs)
+            .build();
+        // Compile the default-folder graph up front, as the other agents do
+        graph(List.of());
+    }
+
+    /**
+     * Build the fan-out graph for the given folders
+     *
+     * @param folderIds Distinct folder IDs; empty reads the server's default folder
+     * @param mailSync Source of the folders' emails used by the fetch nodes
+     * @param branchTimeout Time allowed for reading one folder
+     * @param observationRegistry Registry the nodes report their timings and spans to
+     * @return Uncompiled graph definition
+     */
+    static StateGraph<MailState> buildGraph(List<String> folderIds, MailSync mailSync, Duration branchTimeout,
+                                            ObservationRegistry observationRegistry) {
+        List<String> branches = new ArrayList<>(folderIds);
+        if (branches.isEmpty()) {
+            branches.add(null);
+        }
+        try {
+            StateGraph<MailState> graph = new StateGraph<>(MailState.SCHEMA, MailState::new)
+                .addNode("merge", AsyncNodeAction.node_async(new MergeMailNode(branches.size())))
+                .addEdge("merge", StateGraph.END);
+            for (String folderId : branches) {
+                String nodeId = folderId != null ? "fetch:" + folderId : "fetch";
+                graph.addNode(nodeId, new FetchFolderNode(folderId, mailSync, branchTimeout, observationRegistry))
+                    .addEdge(StateGraph.START, nodeId)
+                    .addEdge(nodeId, "merge");
+            }
+            return graph;
+        } catch (GraphStateException e) {
+            throw new RuntimeException("Error building mail agent graph", e);
+        }
+    }
+
+    /**
+     * Read the given folders in parallel and merge their emails
+     *
+     * @param maxResults Maximum number of emails per folder and in the merged result (optional)
+     * @param folderIds Folders to read; null or empty reads the server's default folder
+     * @return Future completing with the final state: merged emails, folder errors and status
+     */
+    public CompletableFuture<MailState> fetchAsync(Integer maxResults, List<String> folderIds) {
+        return fetchAsync(maxResults, folderIds, null);
+    }
+
+    /**
+     * Read the given folders in parallel and merge their emails, needing only some fields
+     * Folders read straight from the MCP server skip the other fields while decoding, so they
+     * may be null in the result; emails served from the mail store keep all fields.
+     *
+     * @param maxResults Maximum number of emails per folder and in the merged result (optional)
+     * @param folderIds Folders to read; null or empty reads the server's default folder
+     * @param fields Fields the caller needs (optional, default: all)
+     * @return Future completing with the final state: merged emails, folder errors and status
+     */
+    public CompletableFuture<MailState> fetchAsync(Integer maxResults, List<String> folderIds,
+                                                   Set<EmailField> fields) {
+        CompiledGraph<MailState> compiledGraph = graph(folderIds != null ? folderIds : List.of());
+
+        var initialState = new HashMap<String, Object>();
+        if (maxResults != null) {
+            initialState.put(MailState.MAX_RESULTS_KEY, maxResults);
+        }
+        if (fields != null) {
+            // The merge node needs ids and dates whatever the caller asked for
+            initialState.put(MailState.FIELDS_KEY, List.copyOf(EmailField.withMergeKeys(fields)));
+        }
+        // Permits are per run: one request's folders cannot starve another's
+        RunnableConfig config = RunnableConfig.builder()
+            .addMetadata(BranchPermits.METADATA_KEY, new BranchPermits(maxParallelism))
+            .build();
+
+        // Started here, so the run reports as a child of the caller's observation
+        Observation observation = Observation.createNotStarted("agent.graph", observationRegistry)
+            .contextualName("graph " + GRAPH_NAME)
+            .lowCardinalityKeyValue("graph", GRAPH_NAME)
+            .start();
+        // The request's deadline is captured now and applied on the thread driving the run
+        McpDeadline deadline = McpDeadline.current();
+        return CompletableFuture.supplyAsync(() -> {
+                try (Observation.Scope scope = observation.openScope()) {
+                    return McpDeadline.call(deadline,
+                        () -> GraphOutputs.lastState(compiledGraph.stream(initialState, config)));
+                }
+            }, runExecutor)
+            .thenCompose(Function.identity())
+            .whenComplete((state, error) -> {
+                if (error != null) {
+                    observation.error(error);
+                }
+                observation.stop();
+            })
+            .thenApply(state -> {
+                if (state == null) {
+                    throw new IllegalStateException("Mail agent returned no result");
+                }
+                return state;
+            });
+    }
+
+    private CompiledGraph<MailState> graph(List<String> folderIds) {
+        // Order and repeats do not change the graph, so equivalent requests share one
+        List<String> key = List.copyOf(new TreeSet<>(folderIds));
+        return graphs.get(key, folders -> graphRegistry.compile(GRAPH_NAME,
+            buildGraph(folders, mailSync, branchTimeout, observationRegistry)));
+    }
+}
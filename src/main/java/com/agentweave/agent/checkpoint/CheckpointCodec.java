@@ -0,0 +1,300 @@
+package com.agentweave.agent.checkpoint;
+
+import com.agentweave.mail.Email;
+import com.agentweave.mail.FolderError;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of checkpoints
+ * Each state value is a one-byte tag followed by its data, with lengths and ints as varints.
+ * The value types agent state actually holds (strings, numbers, lists, maps, emails and folder
+ * errors) are written field by field; any other Serializable value falls back to Java
+ * serialization, read back only for JDK value types and the application's own classes.
+ */
+final class CheckpointCodec {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+    private static final byte EMAIL = 9;
+    private static final byte FOLDER_ERROR = 10;
+    private static final byte SERIALIZED = 11;
+
+    /**
+     * Classes a serialized state value may contain, such as enums like EmailField; anything
+     * else in the file is rejected instead of instantiated
+     */
+    private static final ObjectInputFilter SERIALIZED_FILTER = ObjectInputFilter.Config.createFilter(
+        "maxdepth=20;java.lang.*;java.util.*;java.time.*;java.math.*;com.agentweave.**;!*");
+
+    private CheckpointCodec() {
+    }
+
+    /**
+     * Growable byte array with the primitive writes the encoding needs
+     */
+    static final class Output {
+
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(Integer.BYTES);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            // Length + 1, so 0 can stand for null
+            writeVarInt(utf8.length + 1);
+            write(utf8, 0, utf8.length);
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void setInt(int position, int value) {
+            bytes[position] = (byte) (value >>> 24);
+            bytes[position + 1] = (byte) (value >>> 16);
+            bytes[position + 2] = (byte) (value >>> 8);
+            bytes[position + 3] = (byte) value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Write a checkpoint's id, node ids and state
+     */
+    static void writeCheckpoint(Output out, Checkpoint checkpoint) {
+        out.writeString(checkpoint.getId());
+        out.writeString(checkpoint.getNodeId());
+        out.writeString(checkpoint.getNextNodeId());
+        writeValue(out, checkpoint.getState());
+    }
+
+    @SuppressWarnings("unchecked")
+    static Checkpoint readCheckpoint(ByteBuffer in) {
+        return Checkpoint.builder()
+            .id(readString(in))
+            .nodeId(readString(in))
+            .nextNodeId(readString(in))
+            .state((Map<String, Object>) readValue(in))
+            .build();
+    }
+
+    static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(STRING);
+            out.writeString(string);
+        } else if (value instanceof Integer number) {
+            out.writeByte(INT);
+            // Zig-zag, so small negative numbers stay short
+            out.writeVarInt((number << 1) ^ (number >> 31));
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(number));
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TRUE : FALSE);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            out.writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map && isStringKeyed(map)) {
+            out.writeByte(MAP);
+            out.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeString((String) entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Email email) {
+            out.writeByte(EMAIL);
+            out.writeString(email.id());
+            out.writeString(email.subject());
+            out.writeString(email.from());
+            out.writeString(email.to());
+            out.writeString(email.date());
+            out.writeString(email.folderId());
+            out.writeString(email.body());
+        } else if (value instanceof FolderError error) {
+            out.writeByte(FOLDER_ERROR);
+            out.writeString(error.folderId());
+            out.writeString(error.error());
+        } else if (value instanceof Serializable serializable) {
+            out.writeByte(SERIALIZED);
+            byte[] bytes = serialize(serializable);
+            out.writeVarInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        } else {
+            throw new IllegalArgumentException("Cannot checkpoint state value of type " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case INT -> {
+                int zigZag = readVarInt(in);
+                yield (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+            case LONG -> in.getLong();
+            case DOUBLE -> Double.longBitsToDouble(in.getLong());
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case LIST -> {
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case MAP -> {
+                int size = readVarInt(in);
+                Map<String, Object> map = new HashMap<>(Math.max(4, size * 2));
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                yield map;
+            }
+            case EMAIL -> new Email(readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in), readString(in));
+            case FOLDER_ERROR -> new FolderError(readString(in), readString(in));
+            case SERIALIZED -> {
+                byte[] bytes = new byte[readVarInt(in)];
+                in.get(bytes);
+                yield deserialize(bytes);
+            }
+            default -> throw new IllegalStateException("Unknown checkpoint value tag " + tag);
+        };
+    }
+
+    private static boolean isStringKeyed(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] serialize(Serializable value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error serializing state value of type " + value.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(SERIALIZED_FILTER);
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Error deserializing checkpointed state value", e);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.agentweave.agent.checkpoint;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of checkpoint records, written by one background thread
+ * Callers only enqueue encoded records. The writer takes whatever has queued up, writes it with
+ * one gathering write and forces it with one fsync, so concurrent runs share fsyncs (group
+ * commit) and a node transition never waits for the disk. Commits are at least commitInterval
+ * apart: the runs do not wait for them, so collecting more records per fsync costs nothing but
+ * the time a record is exposed to a crash. Records are framed as
+ * [length][CRC32C][payload]; a torn record at the end of the file is cut off on open.
+ * The writer also keeps the live records (the newest checkpoints of every unreleased thread) and
+ * periodically rewrites the file with only those once the rest has grown to dominate it.
+ */
+final class CheckpointLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointLog.class);
+
+    private static final byte PUT = 1;
+    private static final byte RELEASE = 2;
+    private static final byte FLUSH = 3;
+    private static final byte STOP = 4;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 1024;
+    private static final int QUEUE_CAPACITY = 16384;
+    // Recovery reads the file in chunks of this size; a larger record gets a buffer of its own size
+    private static final int READ_CHUNK_BYTES = 1 << 20;
+
+    /**
+     * A queued record, or a flush or stop marker with the future to complete
+     */
+    private record Operation(byte type, String threadId, String checkpointId, byte[] frame,
+                             CompletableFuture<Void> done) {
+    }
+
+    /**
+     * A live checkpoint record
+     */
+    private record Entry(String checkpointId, byte[] frame) {
+    }
+
+    private final Path file;
+    private final int maxPerThread;
+    private final long compactionMinSize;
+    private final long compactionIntervalNanos;
+    private final long commitIntervalNanos;
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    // Owned by the writer thread after the constructor returns
+    private final Map<String, ArrayDeque<Entry>> live = new LinkedHashMap<>();
+    private Map<String, List<Checkpoint>> recovered = new LinkedHashMap<>();
+    private final Thread writer;
+    private final Timer commitTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter compactions;
+    private FileChannel channel;
+    private volatile long size;
+    private long liveBytes;
+    private long nextCompaction;
+    private volatile boolean closed;
+    // Set by a failed write, which may leave a torn record at the end: nothing is appended after
+    // it, since recovery stops there and would cut off every later record
+    private boolean damaged;
+
+    /**
+     * @param commitInterval Minimum time between two group commits
+     * @param maxPerThread Checkpoints kept per thread; older ones are dropped on compaction
+     * @param compactionInterval How often the writer checks whether the file is worth compacting
+     * @param compactionMinSize Size below which the file is never compacted
+     */
+    CheckpointLog(Path file, Duration commitInterval, int maxPerThread, Duration compactionInterval,
+                  long compactionMinSize, MeterRegistry meterRegistry) {
+        this.file = file;
+        this.commitIntervalNanos = commitInterval.toNanos();
+        this.maxPerThread = maxPerThread;
+        this.compactionMinSize = compactionMinSize;
+        this.compactionIntervalNanos = compactionInterval.toNanos();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening checkpoint log " + file, e);
+        }
+        for (Map.Entry<String, ArrayDeque<Entry>> thread : live.entrySet()) {
+            List<Checkpoint> checkpoints = new ArrayList<>(thread.getValue().size());
+            for (Entry entry : thread.getValue()) {
+                checkpoints.add(checkpointOf(entry.frame()));
+            }
+            recovered.put(thread.getKey(), checkpoints);
+        }
+        this.nextCompaction = System.nanoTime() + compactionIntervalNanos;
+
+        this.commitTimer = Timer.builder("agent.checkpoint.commit")
+            .description("Checkpoint log group commits: one write and one fsync")
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("agent.checkpoint.batch")
+            .description("Checkpoint records per group commit")
+            .register(meterRegistry);
+        this.compactions = Counter.builder("agent.checkpoint.compactions")
+            .description("Rewrites of the checkpoint log with only live checkpoints")
+            .register(meterRegistry);
+        Gauge.builder("agent.checkpoint.log.size", this, log -> log.size)
+            .description("Size of the checkpoint log in bytes")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+
+        this.writer = new Thread(this::writeLoop, "checkpoint-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Checkpoints of the threads that were not released when the log was last closed
+     * Can be taken once, so the log does not hold on to them.
+     *
+     * @return Checkpoints by thread id, newest first
+     */
+    Map<String, List<Checkpoint>> takeRecovered() {
+        Map<String, List<Checkpoint>> taken = recovered;
+        recovered = Map.of();
+        return taken;
+    }
+
+    /**
+     * Queue a checkpoint, replacing an earlier one of the thread with the same id
+     * The checkpoint is encoded on the calling thread, so later changes to its state are not
+     * seen. Returns at once unless the writer is a full queue behind.
+     */
+    void put(String threadId, Checkpoint checkpoint) {
+        CheckpointCodec.Output out = new CheckpointCodec.Output(256);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(PUT);
+        out.writeString(threadId);
+        CheckpointCodec.writeCheckpoint(out, checkpoint);
+        enqueue(new Operation(PUT, threadId, checkpoint.getId(), frame(out), null));
+    }
+
+    /**
+     * Queue the removal of all checkpoints of the thread
+     */
+    void release(String threadId) {
+        CheckpointCodec.Output out = new CheckpointCodec.Output(HEADER_BYTES + 64);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(RELEASE);
+        out.writeString(threadId);
+        enqueue(new Operation(RELEASE, threadId, null, frame(out), null));
+    }
+
+    /**
+     * @return Future completing once everything queued before it is on disk
+     */
+    CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        enqueue(new Operation(FLUSH, null, null, null, done));
+        return done;
+    }
+
+    long size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        enqueue(new Operation(STOP, null, null, null, stopped));
+        // Later records are refused, so the stop marker is the last one the writer takes
+        closed = true;
+        try {
+            stopped.join();
+        } catch (RuntimeException e) {
+            logger.warn("Error flushing checkpoint log {}: {}", file, e.getMessage());
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Error closing checkpoint log {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void enqueue(Operation operation) {
+        if (closed) {
+            throw new IllegalStateException("Checkpoint log is closed: " + file);
+        }
+        try {
+            // Blocks only when the disk cannot keep up, which pushes back on the runs
+            queue.put(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a checkpoint", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Operation> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopped = false;
+        long nextCommit = System.nanoTime();
+        while (!stopped) {
+            try {
+                long wait = Math.max(nextCompaction - System.nanoTime(), 0);
+                Operation first = queue.poll(wait, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    // Let more records queue up behind the first, unless it is a flush or stop
+                    long delay = nextCommit - System.nanoTime();
+                    if (delay > 0 && first.frame() != null) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                    nextCommit = System.nanoTime() + commitIntervalNanos;
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    stopped = batch.get(batch.size() - 1).type() == STOP;
+                    commit(batch);
+                    batch.clear();
+                }
+                if (!stopped && System.nanoTime() - nextCompaction >= 0) {
+                    nextCompaction = System.nanoTime() + compactionIntervalNanos;
+                    if (size >= compactionMinSize && size > 2 * liveBytes) {
+                        compact();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Records already applied stay live and are written again when the file is rewritten
+                logger.error("Checkpoint log {} write failed: {}", file, e.getMessage());
+                completeWaiters(batch, e);
+                batch.clear();
+                damaged = true;
+                try {
+                    repair();
+                } catch (IOException | RuntimeException repairError) {
+                    logger.error("Checkpoint log {} could not be rewritten, retrying on the next commit: {}",
+                        file, repairError.getMessage());
+                }
+            }
+        }
+    }
+
+    private void commit(List<Operation> batch) throws IOException {
+        long start = System.nanoTime();
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        for (Operation operation : batch) {
+            if (operation.frame() != null) {
+                buffers.add(ByteBuffer.wrap(operation.frame()));
+                apply(operation.type(), operation.threadId(), operation.checkpointId(), operation.frame());
+            }
+        }
+        if (damaged) {
+            // The rewrite includes the records just applied
+            repair();
+        } else if (!buffers.isEmpty()) {
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            long written = 0;
+            while (array[array.length - 1].hasRemaining()) {
+                written += channel.write(array);
+            }
+            channel.force(false);
+            size += written;
+            batchSizes.record(buffers.size());
+            commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        completeWaiters(batch, null);
+    }
+
+    private static void completeWaiters(List<Operation> batch, Throwable error) {
+        for (Operation operation : batch) {
+            if (operation.done() != null) {
+                if (error != null) {
+                    operation.done().completeExceptionally(error);
+                } else {
+                    operation.done().complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Track a record in the live set: the newest maxPerThread checkpoints of each thread
+     */
+    private void apply(byte type, String threadId, String checkpointId, byte[] frame) {
+        if (type == RELEASE) {
+            ArrayDeque<Entry> removed = live.remove(threadId);
+            if (removed != null) {
+                removed.forEach(entry -> liveBytes -= entry.frame().length);
+            }
+            return;
+        }
+        ArrayDeque<Entry> checkpoints = live.computeIfAbsent(threadId, key -> new ArrayDeque<>());
+        for (Iterator<Entry> iterator = checkpoints.iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.checkpointId().equals(checkpointId)) {
+                iterator.remove();
+                liveBytes -= entry.frame().length;
+                break;
+            }
+        }
+        checkpoints.addFirst(new Entry(checkpointId, frame));
+        liveBytes += frame.length;
+        while (checkpoints.size() > maxPerThread) {
+            liveBytes -= checkpoints.removeLast().frame().length;
+        }
+    }
+
+    /**
+     * Rewrite the file from the live set after a failed write, dropping whatever it left behind
+     */
+    private void repair() throws IOException {
+        compact();
+        damaged = false;
+    }
+
+    /**
+     * Rewrite the file with only the live records, oldest first so a replay rebuilds the same order
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        long before = size;
+        Path temporary = file.resolveSibling(file.getFileName() + ".compact");
+        long written = 0;
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ArrayDeque<Entry> checkpoints : live.values()) {
+                for (Iterator<Entry> iterator = checkpoints.descendingIterator(); iterator.hasNext(); ) {
+                    ByteBuffer frame = ByteBuffer.wrap(iterator.next().frame());
+                    while (frame.hasRemaining()) {
+                        written += out.write(frame);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = written;
+        forceDirectory(file.toAbsolutePath().getParent());
+        compactions.increment();
+        logger.debug("Compacted checkpoint log {} from {} to {} bytes in {} ms", file, before, written,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Make a rename in the directory durable: until its entry is forced, a crash can bring back
+     * the file the rename replaced
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Rebuild the live set from the file, cutting off a torn record at the end
+     */
+    private void recover() throws IOException {
+        long fileSize = channel.size();
+        // Holds the file from the next record on, so the file may be larger than any one buffer
+        ByteBuffer buffer = ByteBuffer.allocate(0);
+        CRC32C crc = new CRC32C();
+        long position = 0;
+        while (true) {
+            buffer = fill(buffer, position, HEADER_BYTES);
+            if (buffer.remaining() < HEADER_BYTES) {
+                break;
+            }
+            int length = buffer.getInt(buffer.position());
+            if (length <= 0 || length > fileSize - position - HEADER_BYTES
+                    || length > Integer.MAX_VALUE - 8 - HEADER_BYTES) {
+                break;
+            }
+            int recordBytes = HEADER_BYTES + length;
+            buffer = fill(buffer, position, recordBytes);
+            if (buffer.remaining() < recordBytes) {
+                break;
+            }
+            int start = buffer.position();
+            crc.reset();
+            crc.update(buffer.array(), start + HEADER_BYTES, length);
+            if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+                break;
+            }
+            byte[] frame = new byte[recordBytes];
+            buffer.get(frame);
+            ByteBuffer record = ByteBuffer.wrap(frame, HEADER_BYTES, length);
+            byte type = record.get();
+            String threadId = CheckpointCodec.readString(record);
+            // A checkpoint starts with its id
+            String checkpointId = type == PUT ? CheckpointCodec.readString(record) : null;
+            apply(type, threadId, checkpointId, frame);
+            position += recordBytes;
+        }
+        if (position < fileSize) {
+            logger.warn("Checkpoint log {} ends in a torn record, truncating {} bytes", file, fileSize - position);
+            channel.truncate(position);
+            channel.force(false);
+        }
+        channel.position(position);
+        size = position;
+    }
+
+    /**
+     * Make the buffer hold at least the needed bytes of the file from the offset at its position
+     * Reads a chunk ahead, and grows the buffer for a record larger than one chunk.
+     *
+     * @param offset File offset of the buffer's first remaining byte
+     * @return Buffer with at least the needed bytes remaining, or fewer at the end of the file
+     */
+    private ByteBuffer fill(ByteBuffer buffer, long offset, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        if (buffer.capacity() < needed || buffer.capacity() < READ_CHUNK_BYTES) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, READ_CHUNK_BYTES));
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        long readAt = offset + buffer.position();
+        int read;
+        while (buffer.hasRemaining() && (read = channel.read(buffer, readAt)) > 0) {
+            readAt += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Fill in the frame's length and checksum
+     */
+    private static byte[] frame(CheckpointCodec.Output out) {
+        int length = out.size() - HEADER_BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), HEADER_BYTES, length);
+        out.setInt(0, length);
+        out.setInt(Integer.BYTES, (int) crc.getValue());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode the checkpoint of a PUT frame
+     */
+    private static Checkpoint checkpointOf(byte[] frame) {
+        ByteBuffer record = ByteBuffer.wrap(frame, HEADER_BYTES, frame.length - HEADER_BYTES);
+        record.get();
+        CheckpointCodec.readString(record);
+        return CheckpointCodec.readCheckpoint(record);
+    }
+}
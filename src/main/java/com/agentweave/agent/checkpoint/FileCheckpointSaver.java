@@ -0,0 +1,105 @@
+package com.agentweave.agent.checkpoint;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LangGraph4j checkpoint saver backed by an append-only local file
+ * Checkpoints are served from memory as by {@link MemorySaver}; every insert, update and
+ * release is also queued to a {@link CheckpointLog}, which writes them in the background with
+ * group fsyncs. After a restart, the checkpoints of runs that never reached END (threads that
+ * were not released) are loaded back, so those runs can be resumed from their last completed
+ * node with {@code GraphInput.resume()} and the same thread id.
+ * A crash loses at most the checkpoints of the last commit interval; such a run resumes from an
+ * earlier node.
+ */
+public class FileCheckpointSaver extends MemorySaver implements AutoCloseable {
+
+    private final CheckpointLog log;
+    private final int maxPerThread;
+    private final Map<String, List<Checkpoint>> interrupted;
+
+    /**
+     * @param file Checkpoint log file
+     * @param commitInterval Minimum time between two group commits (write and fsync) of the log
+     * @param maxPerThread Checkpoints kept per thread, newest first
+     * @param compactionInterval How often the log is checked for compaction
+     * @param compactionMinSize Size below which the log is never compacted
+     */
+    public FileCheckpointSaver(Path file, Duration commitInterval, int maxPerThread, Duration compactionInterval,
+                               long compactionMinSize, MeterRegistry meterRegistry) {
+        this.log = new CheckpointLog(file, commitInterval, maxPerThread, compactionInterval, compactionMinSize,
+            meterRegistry);
+        this.maxPerThread = maxPerThread;
+        this.interrupted = new ConcurrentHashMap<>(log.takeRecovered());
+    }
+
+    /**
+     * @return Ids of the threads whose runs were interrupted by the last shutdown and not yet resumed or released
+     */
+    public Set<String> interruptedThreads() {
+        return Set.copyOf(interrupted.keySet());
+    }
+
+    /**
+     * @return Future completing once every checkpoint saved so far is on disk
+     */
+    public CompletableFuture<Void> flush() {
+        return log.flush();
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    @Override
+    protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) {
+        // Called on every access; only the first one of a recovered thread finds something to load
+        if (checkpoints.isEmpty() && !interrupted.isEmpty()) {
+            List<Checkpoint> recovered = interrupted.remove(threadId(config));
+            if (recovered != null) {
+                checkpoints.addAll(recovered);
+            }
+        }
+        return checkpoints;
+    }
+
+    @Override
+    protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints,
+                                      Checkpoint checkpoint) {
+        log.put(threadId(config), checkpoint);
+        while (checkpoints.size() > maxPerThread) {
+            checkpoints.removeLast();
+        }
+    }
+
+    @Override
+    protected void updatedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints,
+                                     Checkpoint checkpoint) {
+        log.put(threadId(config), checkpoint);
+    }
+
+    @Override
+    protected void releasedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints,
+                                       BaseCheckpointSaver.Tag tag) {
+        interrupted.remove(tag.threadId());
+        log.release(tag.threadId());
+    }
+
+    private static String threadId(RunnableConfig config) {
+        return config.threadId().orElse(BaseCheckpointSaver.THREAD_ID_DEFAULT);
+    }
+}
@@ -0,0 +1,92 @@
+package com.agentweave.agent.node;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking limit on the number of parallel branches of one graph run that are in flight
+ * A branch over the limit is queued and started when a running one completes, so no thread
+ * waits for a permit. One instance is created per run and passed to the nodes in the
+ * RunnableConfig metadata under {@link #METADATA_KEY}.
+ */
+public final class BranchPermits {
+
+    public static final String METADATA_KEY = "agent.branchPermits";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int available;
+
+    /**
+     * @param permits Maximum number of branches in flight at once
+     */
+    public BranchPermits(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be at least 1: " + permits);
+        }
+        this.available = permits;
+    }
+
+    /**
+     * Start the task now if a permit is free, otherwise once one is released
+     * 
+     * @param task Starts the branch work and returns its future
+     * @return Future completing with the task's result
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> future;
+            try {
+                future = task.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        lock.lock();
+        boolean acquired;
+        try {
+            acquired = available > 0;
+            if (acquired) {
+                available--;
+            } else {
+                waiting.add(start);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (acquired) {
+            start.run();
+        }
+        return result;
+    }
+
+    private void release() {
+        Runnable next;
+        lock.lock();
+        try {
+            // Hand the permit straight to the next waiting branch, if any
+            next = waiting.poll();
+            if (next == null) {
+                available++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+}
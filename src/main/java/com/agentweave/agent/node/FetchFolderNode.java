@@ -0,0 +1,92 @@
+package com.agentweave.agent.node;
+
+import com.agentweave.agent.state.MailState;
+import com.agentweave.mail.Email;
+import com.agentweave.mail.FolderError;
+import com.agentweave.mail.MailSync;
+import com.agentweave.mcp.McpDeadline;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.action.AsyncNodeActionWithConfig;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Mail agent branch reading one folder, from the local mail store or the MCP server's
+ * readOutlookEmails tool
+ * The branch never fails the graph: an error or a timeout is recorded in the errors channel,
+ * so the merge node still runs with the folders that could be read.
+ */
+public class FetchFolderNode implements AsyncNodeActionWithConfig<MailState> {
+
+    private final String folderId;
+    private final MailSync mailSync;
+    private final Duration timeout;
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * @param folderId Folder to read, or null for the server's default folder
+     * @param mailSync Source of the folder's emails: the local store, synced with the MCP server
+     * @param timeout Time allowed for reading the folder once the branch has started
+     * @param observationRegistry Registry the node reports its timing and span to
+     */
+    public FetchFolderNode(String folderId, MailSync mailSync, Duration timeout,
+                           ObservationRegistry observationRegistry) {
+        this.folderId = folderId;
+        this.mailSync = mailSync;
+        this.timeout = timeout;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> apply(MailState state, RunnableConfig config) {
+        Observation observation = Observation.createNotStarted("agent.node", observationRegistry)
+            .contextualName("node fetch")
+            .lowCardinalityKeyValue("graph", "mail")
+            .lowCardinalityKeyValue("node", "fetch")
+            .highCardinalityKeyValue("folder", String.valueOf(folderId))
+            .start();
+
+        // Branches over the run's parallelism limit wait here without holding a thread; a queued
+        // branch starts on another thread, so the request's deadline is captured now
+        McpDeadline deadline = McpDeadline.current();
+        CompletableFuture<List<Email>> emails = config.metadata(BranchPermits.METADATA_KEY)
+            .map(BranchPermits.class::cast)
+            .map(permits -> permits.submit(() -> McpDeadline.call(deadline, () -> fetch(state, observation))))
+            .orElseGet(() -> fetch(state, observation));
+
+        return emails
+            .handle((result, error) -> {
+                if (error != null) {
+                    observation.error(error);
+                }
+                observation.stop();
+                return error == null
+                    ? Map.<String, Object>of(MailState.FETCHED_KEY, result != null ? result : List.of())
+                    : Map.<String, Object>of(MailState.ERRORS_KEY, List.of(new FolderError(folderId, describe(error))));
+            });
+    }
+
+    private CompletableFuture<List<Email>> fetch(MailState state, Observation observation) {
+        try (Observation.Scope scope = observation.openScope()) {
+            // The timeout cancels the HTTP exchange, so a slow folder releases its connection too
+            return mailSync.readAsync(state.getMaxResults(), folderId, state.getFields())
+                .timeout(timeout)
+                .toFuture();
+        }
+    }
+
+    private String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            return "Timed out after " + timeout.toMillis() + "ms";
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
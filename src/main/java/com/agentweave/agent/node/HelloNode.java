@@ -2,6 +2,8 @@ package com.agentweave.agent.node;
 
 import com.agentweave.agent.state.HelloState;
 import com.agentweave.mcp.McpClient;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.bsc.langgraph4j.action.AsyncNodeAction;
 
 import java.util.Map;
@@ -14,31 +16,53 @@ import java.util.concurrent.CompletableFuture;
 public class HelloNode implements AsyncNodeAction<HelloState> {
 
     private final McpClient mcpClient;
+    private final ObservationRegistry observationRegistry;
 
-    public HelloNode(McpClient mcpClient) {
+    public HelloNode(McpClient mcpClient, ObservationRegistry observationRegistry) {
         this.mcpClient = mcpClient;
+        this.observationRegistry = observationRegistry;
     }
 
     @Override
     public CompletableFuture<Map<String, Object>> apply(HelloState state) {
         String name = state.getName();
         
-        // Call MCP server's hello tool
-        String mcpResponse = mcpClient.callHelloTool(name);
+        // Time the node as agent.node; the MCP call below becomes a child span
+        Observation observation = Observation.createNotStarted("agent.node", observationRegistry)
+            .contextualName("node hello")
+            .lowCardinalityKeyValue("graph", "hello")
+            .lowCardinalityKeyValue("node", "hello")
+            .start();
         
+        // Call MCP server's hello tool and compose the result instead of blocking on it
+        CompletableFuture<Map<String, Object>> updates;
+        try (Observation.Scope scope = observation.openScope()) {
+            updates = mcpClient.callHelloToolAsync(name)
+                .defaultIfEmpty("")
+                .map(mcpResponse -> toStateUpdates(name, mcpResponse))
+                .toFuture();
+        }
+        return updates
+            .whenComplete((result, error) -> {
+                if (error != null) {
+                    observation.error(error);
+                }
+                observation.stop();
+            });
+    }
+
+    private Map<String, Object> toStateUpdates(String name, String mcpResponse) {
         // Process the response from MCP server
         String greeting = mcpResponse != null && !mcpResponse.isEmpty() 
             ? mcpResponse 
             : "Hello, " + name + "!";
         String message = greeting + " Agent processed your request using LangGraph4j with MCP.";
         
-        // Update state - appender channels expect lists, so we append single values as lists
-        Map<String, Object> updates = new java.util.HashMap<>();
-        updates.put(HelloState.GREETING_KEY, java.util.List.of(greeting));
-        updates.put(HelloState.MESSAGE_KEY, java.util.List.of(message));
-        updates.put(HelloState.STATUS_KEY, java.util.List.of("completed"));
-        
-        return CompletableFuture.completedFuture(updates);
+        // Last-value channels: each update replaces the previous value
+        return Map.of(
+            HelloState.GREETING_KEY, greeting,
+            HelloState.MESSAGE_KEY, message,
+            HelloState.STATUS_KEY, "completed"
+        );
     }
 }
-
@@ -0,0 +1,56 @@
+package com.agentweave.agent.node;
+
+import com.agentweave.agent.state.MailState;
+import com.agentweave.mail.Email;
+import org.bsc.langgraph4j.action.NodeAction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mail agent join node
+ * Merges the emails of all fetch branches, drops duplicates by id (an email can be listed in
+ * several folders), sorts newest first and applies maxResults to the merged list.
+ */
+public class MergeMailNode implements NodeAction<MailState> {
+
+    private final int branches;
+
+    /**
+     * @param branches Number of fetch branches feeding this node
+     */
+    public MergeMailNode(int branches) {
+        this.branches = branches;
+    }
+
+    @Override
+    public Map<String, Object> apply(MailState state) {
+        Map<String, Email> byId = new LinkedHashMap<>();
+        List<Email> withoutId = new ArrayList<>();
+        for (Email email : state.getFetched()) {
+            if (email.id() == null) {
+                withoutId.add(email);
+            } else {
+                byId.putIfAbsent(email.id(), email);
+            }
+        }
+        List<Email> emails = new ArrayList<>(byId.size() + withoutId.size());
+        emails.addAll(byId.values());
+        emails.addAll(withoutId);
+        emails.sort(Email.NEWEST_FIRST);
+
+        Integer maxResults = state.getMaxResults();
+        if (maxResults != null && maxResults >= 0 && emails.size() > maxResults) {
+            emails = new ArrayList<>(emails.subList(0, maxResults));
+        }
+
+        int failed = state.getErrors().size();
+        String status = failed == 0 ? "success" : failed < branches ? "partial" : "error";
+        return Map.of(
+            MailState.EMAILS_KEY, emails,
+            MailState.STATUS_KEY, status
+        );
+    }
+}
@@ -2,15 +2,14 @@ package com.agentweave.agent.state;
 
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.Channel;
-import org.bsc.langgraph4j.state.Channels;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * State definition for the Hello agent using LangGraph4j
+ * All keys are scalars held in last-value channels, and the values are copied into fields
+ * once per state instance, so getters neither allocate nor look up the map.
  */
 public class HelloState extends AgentState {
     
@@ -19,33 +18,39 @@ public class HelloState extends AgentState {
     public static final String GREETING_KEY = "greeting";
     public static final String STATUS_KEY = "status";
 
-    public static final Map<String, Channel<?>> SCHEMA;
-    
-    static {
-        Map<String, Channel<?>> schema = new HashMap<>();
-        // Create channels using LangGraph4j Channels API
-        // For simple value channels, we can use appender with a single-value list
-        // or try alternative approaches based on the actual API
-        try {
-            // Try using appender with ArrayList supplier for each channel
-            schema.put(NAME_KEY, Channels.appender(() -> new java.util.ArrayList<String>()));
-            schema.put(MESSAGE_KEY, Channels.appender(() -> new java.util.ArrayList<String>()));
-            schema.put(GREETING_KEY, Channels.appender(() -> new java.util.ArrayList<String>()));
-            schema.put(STATUS_KEY, Channels.appender(() -> new java.util.ArrayList<String>()));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create state schema with Channels.appender", e);
-        }
-        SCHEMA = Map.copyOf(schema);
-    }
+    public static final Map<String, Channel<?>> SCHEMA = Map.of(
+        NAME_KEY, StateChannels.<String>lastValue(),
+        MESSAGE_KEY, StateChannels.<String>lastValue(),
+        GREETING_KEY, StateChannels.<String>lastValue(),
+        STATUS_KEY, StateChannels.<String>lastValue()
+    );
+
+    private final String name;
+    private final String message;
+    private final String greeting;
+    private final String status;
 
     public HelloState(Map<String, Object> initData) {
         super(initData);
+        this.name = lastValue(initData.get(NAME_KEY));
+        this.message = lastValue(initData.get(MESSAGE_KEY));
+        this.greeting = lastValue(initData.get(GREETING_KEY));
+        this.status = lastValue(initData.get(STATUS_KEY));
+    }
+
+    /**
+     * Read a scalar value; a list (the shape used by the former appender channels) yields
+     * its last element, so callers still passing single-element lists keep working
+     */
+    private static String lastValue(Object value) {
+        if (value instanceof List<?> list) {
+            return list.isEmpty() ? null : lastValue(list.get(list.size() - 1));
+        }
+        return value != null ? value.toString() : null;
     }
 
     public String getName() {
-        // Appender channels store lists, get the last value (most recent)
-        List<String> nameList = this.<List<String>>value(NAME_KEY).orElse(new ArrayList<>());
-        return nameList.isEmpty() ? "World" : nameList.get(nameList.size() - 1);
+        return name != null ? name : "World";
     }
 
     public void setName(String name) {
@@ -53,9 +58,7 @@ public class HelloState extends AgentState {
     }
 
     public String getMessage() {
-        // Appender channels store lists, get the last value (most recent)
-        List<String> msgList = this.<List<String>>value(MESSAGE_KEY).orElse(new ArrayList<>());
-        return msgList.isEmpty() ? "" : msgList.get(msgList.size() - 1);
+        return message != null ? message : "";
     }
 
     public void setMessage(String message) {
@@ -63,9 +66,7 @@ public class HelloState extends AgentState {
     }
 
     public String getGreeting() {
-        // Appender channels store lists, get the last value (most recent)
-        List<String> greetingList = this.<List<String>>value(GREETING_KEY).orElse(new ArrayList<>());
-        return greetingList.isEmpty() ? "" : greetingList.get(greetingList.size() - 1);
+        return greeting != null ? greeting : "";
     }
 
     public void setGreeting(String greeting) {
@@ -73,13 +74,10 @@ public class HelloState extends AgentState {
     }
 
     public String getStatus() {
-        // Appender channels store lists, get the last value (most recent)
-        List<String> statusList = this.<List<String>>value(STATUS_KEY).orElse(new ArrayList<>());
-        return statusList.isEmpty() ? "" : statusList.get(statusList.size() - 1);
+        return status != null ? status : "";
     }
 
     public void setStatus(String status) {
         // State is updated through node actions, not directly
     }
 }
-
@@ -0,0 +1,106 @@
+package com.agentweave.agent.state;
+
+import com.agentweave.mail.Email;
+import com.agentweave.mail.EmailField;
+import com.agentweave.mail.FolderError;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.Channel;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * State definition for the Mail agent
+ * Fetch branches run in parallel and append to the fetched and errors channels; the merge node
+ * then writes the deduplicated, sorted emails and the overall status as last values.
+ */
+public class MailState extends AgentState {
+
+    public static final String MAX_RESULTS_KEY = "maxResults";
+    public static final String FIELDS_KEY = "fields";
+    public static final String FETCHED_KEY = "fetched";
+    public static final String ERRORS_KEY = "errors";
+    public static final String EMAILS_KEY = "emails";
+    public static final String STATUS_KEY = "status";
+
+    public static final Map<String, Channel<?>> SCHEMA = Map.of(
+        MAX_RESULTS_KEY, StateChannels.<Integer>lastValue(),
+        // A list: LangGraph4j's state serializer writes every collection as one
+        FIELDS_KEY, StateChannels.<List<EmailField>>lastValue(),
+        FETCHED_KEY, StateChannels.<Email>appender(),
+        ERRORS_KEY, StateChannels.<FolderError>appender(),
+        EMAILS_KEY, StateChannels.<List<Email>>lastValue(),
+        STATUS_KEY, StateChannels.<String>lastValue()
+    );
+
+    private final Integer maxResults;
+    private final Set<EmailField> fields;
+    private final List<Email> fetched;
+    private final List<FolderError> errors;
+    private final List<Email> emails;
+    private final String status;
+
+    @SuppressWarnings("unchecked")
+    public MailState(Map<String, Object> initData) {
+        super(initData);
+        this.maxResults = (Integer) initData.get(MAX_RESULTS_KEY);
+        this.fields = toSet((List<EmailField>) initData.get(FIELDS_KEY));
+        this.fetched = (List<Email>) initData.getOrDefault(FETCHED_KEY, List.of());
+        this.errors = (List<FolderError>) initData.getOrDefault(ERRORS_KEY, List.of());
+        this.emails = (List<Email>) initData.getOrDefault(EMAILS_KEY, List.of());
+        this.status = (String) initData.get(STATUS_KEY);
+    }
+
+    /**
+     * @return Maximum number of emails per folder and in the merged result, or null for the server default
+     */
+    public Integer getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * @return Email fields to read, or null for all of them
+     */
+    public Set<EmailField> getFields() {
+        return fields;
+    }
+
+    private static Set<EmailField> toSet(List<EmailField> fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<EmailField> set = EnumSet.noneOf(EmailField.class);
+        set.addAll(fields);
+        return set;
+    }
+
+    /**
+     * @return Emails of all fetched folders as received, possibly with duplicates
+     */
+    public List<Email> getFetched() {
+        return fetched;
+    }
+
+    /**
+     * @return Folders that failed or timed out
+     */
+    public List<FolderError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return Merged emails, deduplicated by id and newest first
+     */
+    public List<Email> getEmails() {
+        return emails;
+    }
+
+    /**
+     * @return success, partial (some folders failed) or error (all folders failed)
+     */
+    public String getStatus() {
+        return status != null ? status : "";
+    }
+}
@@ -0,0 +1,34 @@
+package com.agentweave.agent.state;
+
+import org.bsc.langgraph4j.state.Channel;
+import org.bsc.langgraph4j.state.Channels;
+import org.bsc.langgraph4j.state.Reducer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Channel factories for agent state schemas
+ * Scalar keys should use {@link #lastValue()}: an update replaces the stored value, so state
+ * size stays constant however often a node writes the key. {@link #appender()} is for keys
+ * that really accumulate (e.g. a message history) and grows with every update.
+ */
+public final class StateChannels {
+
+    private StateChannels() {
+    }
+
+    /**
+     * Channel keeping only the most recent value written to the key
+     */
+    public static <T> Channel<T> lastValue() {
+        return Channels.base((Reducer<T>) (current, update) -> update);
+    }
+
+    /**
+     * Channel appending every value written to the key to a list
+     */
+    public static <T> Channel<List<T>> appender() {
+        return Channels.appender(ArrayList::new);
+    }
+}
@@ -1,16 +1,133 @@
 package com.agentweave.config;
 
+import com.agentweave.agent.AgentRecovery;
+import com.agentweave.agent.AgentScheduler;
+import com.agentweave.agent.AgentWarmup;
+import com.agentweave.agent.GraphRegistry;
 import com.agentweave.agent.HelloAgent;
+import com.agentweave.agent.MailAgent;
+import com.agentweave.agent.checkpoint.FileCheckpointSaver;
+import com.agentweave.mail.MailStore;
+import com.agentweave.mail.MailSync;
+import com.agentweave.mail.archive.MailArchive;
 import com.agentweave.mcp.McpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
 
 @Configuration
 public class AgentConfig {
 
     @Bean
-    public HelloAgent helloAgent(McpClient mcpClient) {
-        return new HelloAgent(mcpClient);
+    public GraphRegistry graphRegistry(MeterRegistry meterRegistry) {
+        return new GraphRegistry(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "agent.checkpoint.enabled", havingValue = "true")
+    public FileCheckpointSaver checkpointSaver(
+            MeterRegistry meterRegistry,
+            @Value("${agent.checkpoint.file:data/checkpoints/checkpoints.log}") Path file,
+            @Value("${agent.checkpoint.commit-interval:10ms}") Duration commitInterval,
+            @Value("${agent.checkpoint.max-per-thread:10}") int maxPerThread,
+            @Value("${agent.checkpoint.compaction-interval:1m}") Duration compactionInterval,
+            @Value("${agent.checkpoint.compaction-min-size:4MB}") DataSize compactionMinSize) {
+        return new FileCheckpointSaver(file, commitInterval, maxPerThread, compactionInterval,
+            compactionMinSize.toBytes(), meterRegistry);
+    }
+
+    @Bean
+    public AgentScheduler agentScheduler(MeterRegistry meterRegistry,
+                                         @Value("${agent.scheduler.max-concurrent:64}") int maxConcurrent,
+                                         @Value("${agent.scheduler.interactive-reserved:4}") int interactiveReserved,
+                                         @Value("${agent.scheduler.max-queued:1000}") int maxQueued,
+                                         @Value("${agent.scheduler.batch-window:64}") int batchWindow,
+                                         @Value("${agent.scheduler.max-batches:16}") int maxBatches) {
+        return new AgentScheduler(meterRegistry, maxConcurrent, interactiveReserved, maxQueued, batchWindow,
+            maxBatches);
     }
-}
 
+    @Bean
+    public HelloAgent helloAgent(McpClient mcpClient, GraphRegistry graphRegistry,
+                                 ObservationRegistry observationRegistry,
+                                 @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                 Executor runExecutor,
+                                 ObjectProvider<FileCheckpointSaver> checkpointSaver,
+                                 AgentScheduler agentScheduler) {
+        // Boot's application executor drives graph runs: virtual threads when
+        // spring.threads.virtual.enabled=true on Java 21+, otherwise a platform pool sized by
+        // spring.task.execution.pool.*
+        return new HelloAgent(mcpClient, graphRegistry, observationRegistry, runExecutor,
+            checkpointSaver.getIfAvailable(), agentScheduler);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "agent.checkpoint.enabled", havingValue = "true")
+    public AgentRecovery agentRecovery(HelloAgent helloAgent, FileCheckpointSaver checkpointSaver,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${agent.request-timeout:10s}") Duration runBudget) {
+        return new AgentRecovery(helloAgent, checkpointSaver, meterRegistry, runBudget);
+    }
+
+    @Bean
+    public MailStore mailStore() {
+        return new MailStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "agent.mail.archive.enabled", havingValue = "true", matchIfMissing = true)
+    public MailArchive mailArchive(MeterRegistry meterRegistry,
+                                   @Value("${agent.mail.archive.directory:data/mail-archive}") Path directory,
+                                   @Value("${agent.mail.archive.segment-size:64MB}") DataSize segmentSize,
+                                   @Value("${agent.mail.archive.checkpoint-interval:5m}") Duration checkpointInterval) {
+        return new MailArchive(directory, Math.toIntExact(segmentSize.toBytes()), checkpointInterval, meterRegistry);
+    }
+
+    @Bean
+    public MailSync mailSync(McpClient mcpClient, MailStore mailStore, ObjectProvider<MailArchive> mailArchive,
+                             MeterRegistry meterRegistry,
+                             @Value("${agent.mail.sync.enabled:true}") boolean enabled,
+                             @Value("${agent.mail.sync.page-size:25}") int pageSize,
+                             @Value("${agent.mail.sync.page-max-size:1000}") int maxPageSize,
+                             @Value("${agent.mail.sync.initial-size:100}") int initialSize,
+                             @Value("${agent.mail.sync.interval:30s}") Duration interval,
+                             @Value("${agent.mail.sync.max-staleness:60s}") Duration maxStaleness,
+                             @Value("${agent.mail.sync.idle-timeout:30m}") Duration idleTimeout,
+                             @Value("${agent.mail.sync.resync-interval:1h}") Duration resyncInterval,
+                             @Value("${agent.mail.max-parallelism:4}") int parallelism) {
+        return new MailSync(mcpClient, mailStore, mailArchive.getIfAvailable(), meterRegistry, enabled,
+            pageSize, maxPageSize, initialSize, interval, maxStaleness, idleTimeout, resyncInterval, parallelism);
+    }
+
+    @Bean
+    public MailAgent mailAgent(MailSync mailSync, GraphRegistry graphRegistry,
+                               ObservationRegistry observationRegistry,
+                               @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                               Executor runExecutor,
+                               @Value("${agent.mail.max-parallelism:4}") int maxParallelism,
+                               @Value("${agent.mail.branch-timeout:5s}") Duration branchTimeout,
+                               @Value("${agent.mail.max-cached-graphs:128}") int maxCachedGraphs) {
+        return new MailAgent(mailSync, graphRegistry, observationRegistry, runExecutor,
+            maxParallelism, branchTimeout, maxCachedGraphs);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "agent.warmup.enabled", havingValue = "true", matchIfMissing = true)
+    public AgentWarmup agentWarmup(HelloAgent helloAgent,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${agent.warmup.iterations:20}") int iterations,
+                                   @Value("${agent.warmup.name:warmup}") String name) {
+        return new AgentWarmup(helloAgent, meterRegistry, iterations, name);
+    }
+}
@@ -1,33 +1,91 @@
 package com.agentweave.controller;
 
+import com.agentweave.agent.AgentRejectedException;
 import com.agentweave.agent.HelloAgent;
+import com.agentweave.agent.state.HelloState;
+import com.agentweave.mcp.McpDeadline;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 public class HelloController {
 
+    // Batches are queued per client; without the header, per remote address
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
     private final HelloAgent helloAgent;
+    private final Duration requestTimeout;
+    private final int maxBatchSize;
 
-    public HelloController(HelloAgent helloAgent) {
+    public HelloController(HelloAgent helloAgent,
+                           @Value("${agent.request-timeout:10s}") Duration requestTimeout,
+                           @Value("${agent.scheduler.max-batch-size:10000}") int maxBatchSize) {
         this.helloAgent = helloAgent;
+        this.requestTimeout = requestTimeout;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @GetMapping("/hello")
-    public Map<String, Object> hello(@RequestParam(value = "name", defaultValue = "World") String name) {
-        Map<String, Object> response = new HashMap<>();
-        
-        // Execute the LangGraph4j agent
-        String message = helloAgent.greet(name);
-        
-        response.put("message", message);
-        response.put("agent", "LangGraph4j Agent");
-        response.put("name", name);
-        return response;
+    public Mono<Map<String, Object>> hello(@RequestParam(value = "name", defaultValue = "World") String name) {
+        // Execute the LangGraph4j agent; the run is driven on the agent's run executor, not the request thread
+        // The run goes ahead of batches; MCP calls made by the graph share the request's budget,
+        // which includes the time the run waits for a slot
+        return Mono.fromFuture(() -> McpDeadline.call(McpDeadline.after(requestTimeout),
+                () -> helloAgent.submitGreet(name)))
+            .onErrorMap(AgentRejectedException.class,
+                e -> new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e))
+            .map(message -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("message", message);
+                response.put("agent", "LangGraph4j Agent");
+                response.put("name", name);
+                return response;
+            });
     }
-}
 
+    @PostMapping(value = "/hello/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Map<String, Object>> helloBatch(@RequestBody List<String> names,
+                                                @RequestHeader(value = CLIENT_ID_HEADER, required = false) String clientId,
+                                                HttpServletRequest request) {
+        if (names.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Batch of " + names.size() + " names exceeds " + maxBatchSize);
+        }
+        String client = clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+        // One NDJSON line per name, written as soon as its run completes; each run has its own budget
+        Flux<Map<String, Object>> inputs = Flux.fromIterable(names)
+            .map(name -> Map.<String, Object>of(HelloState.NAME_KEY, name));
+        return helloAgent.executeBatch(client, inputs, requestTimeout)
+            .onErrorMap(AgentRejectedException.class,
+                e -> new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e))
+            .map(result -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("index", result.index());
+                response.put("name", names.get((int) result.index()));
+                if (result.error() != null) {
+                    response.put("status", "error");
+                    response.put("error", result.error());
+                } else {
+                    response.put("status", "success");
+                    response.put("message", result.result().getMessage());
+                }
+                return response;
+            });
+    }
+}
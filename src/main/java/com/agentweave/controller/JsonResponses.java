@@ -0,0 +1,134 @@
+package com.agentweave.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON responses written with a streaming generator, gzip-compressed when the client accepts it
+ * The body goes from the generator's buffer straight to the response stream, through the
+ * compressor if any, so no response map, tree or byte array of the whole body is built.
+ * zstd is not offered: the JDK has no codec for it, so a client asking for zstd and gzip gets
+ * gzip, and one asking for zstd only gets identity.
+ */
+final class JsonResponses {
+
+    static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Writes the JSON body
+     */
+    @FunctionalInterface
+    interface Body {
+
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    // The response stream belongs to the container, which flushes and closes it
+    private final JsonFactory factory = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+    private final int compressionLevel;
+
+    /**
+     * @param compressionLevel Deflate level 1 (fastest) to 9 (smallest); 0 never compresses
+     */
+    JsonResponses(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("Compression level must be 0 to 9: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @param status Response status
+     * @param acceptEncoding Accept-Encoding request header, or null
+     * @param body Writes the body
+     * @return Response streaming the body, with Content-Encoding set if it is compressed
+     */
+    ResponseEntity<StreamingResponseBody> stream(HttpStatusCode status, String acceptEncoding, Body body) {
+        boolean gzip = compressionLevel > 0 && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.body(out -> {
+            OutputStream target = gzip ? new GzipStream(out, compressionLevel) : out;
+            try (JsonGenerator generator = factory.createGenerator(target, JsonEncoding.UTF8)) {
+                body.write(generator);
+            } finally {
+                if (gzip) {
+                    target.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip, i.e. lists gzip or * without q=0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            String coding = parts[0].trim();
+            boolean acceptable = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        acceptable = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        acceptable = false;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase(GZIP) || coding.equalsIgnoreCase("x-gzip")) {
+                // An explicit entry wins over the wildcard
+                return acceptable;
+            }
+            if (coding.equals("*")) {
+                wildcard = acceptable;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * Gzip stream at a chosen level whose close finishes the gzip data and frees the deflater,
+     * but leaves the response stream open
+     */
+    private static final class GzipStream extends GZIPOutputStream {
+
+        GzipStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                def.end();
+            }
+        }
+    }
+}
@@ -1,51 +1,190 @@
 package com.agentweave.controller;
 
+import com.agentweave.agent.MailAgent;
+import com.agentweave.agent.state.MailState;
+import com.agentweave.mail.Email;
+import com.agentweave.mail.EmailField;
+import com.agentweave.mail.FolderError;
+import com.agentweave.mail.archive.MailArchive;
+import com.agentweave.mail.archive.MailQuery;
 import com.agentweave.mcp.McpClient;
+import com.agentweave.mcp.McpDeadline;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/mails")
 public class MailController {
 
+    // Field names are encoded once, not per email
+    private static final SerializedString[] FIELD_NAMES = Arrays.stream(EmailField.values())
+        .map(field -> new SerializedString(field.jsonName()))
+        .toArray(SerializedString[]::new);
+
     private final McpClient mcpClient;
+    private final MailAgent mailAgent;
+    private final MailArchive mailArchive;
+    private final Duration requestTimeout;
+    private final JsonResponses jsonResponses;
 
-    public MailController(McpClient mcpClient) {
+    public MailController(McpClient mcpClient, MailAgent mailAgent, ObjectProvider<MailArchive> mailArchive,
+                          @Value("${agent.request-timeout:10s}") Duration requestTimeout,
+                          @Value("${agent.response.compression-level:1}") int compressionLevel) {
         this.mcpClient = mcpClient;
+        this.mailAgent = mailAgent;
+        this.mailArchive = mailArchive.getIfAvailable();
+        this.requestTimeout = requestTimeout;
+        this.jsonResponses = new JsonResponses(compressionLevel);
     }
 
     @GetMapping
-    public Map<String, Object> getMails(
+    public Mono<ResponseEntity<StreamingResponseBody>> getMails(
             @RequestParam(value = "maxResults", required = false) Integer maxResults,
-            @RequestParam(value = "folderId", required = false) String folderId) {
-        Map<String, Object> response = new java.util.HashMap<>();
-        
+            @RequestParam(value = "folderId", required = false) List<String> folderIds,
+            @RequestParam(value = "fields", required = false) List<String> fieldNames,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Comma-separated or repeated folderId values are read in parallel by the mail agent
+        List<String> folders = folderIds == null ? List.of() : folderIds.stream()
+            .map(String::trim)
+            .filter(folderId -> !folderId.isEmpty())
+            .distinct()
+            .toList();
+        Set<EmailField> fields;
         try {
-            // Call MCP server's readOutlookEmails tool
-            List<Map<String, Object>> emails = mcpClient.readOutlookEmails(maxResults, folderId);
-            
-            response.put("emails", emails);
-            response.put("count", emails.size());
-            response.put("status", "success");
-            if (maxResults != null) {
-                response.put("maxResults", maxResults);
+            fields = EmailField.parse(fieldNames);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        // The mail agent drives the run on its run executor, which is held until the slowest folder
+        // is read; the request thread is not. Every folder's MCP call shares the request's budget;
+        // only the requested fields are read where the emails come straight from the server, and
+        // only they are written
+        Set<EmailField> projection = fieldNames == null || fieldNames.isEmpty() ? null : fields;
+        return Mono.fromFuture(() -> McpDeadline.call(McpDeadline.after(requestTimeout),
+                () -> mailAgent.fetchAsync(maxResults, folders, projection)))
+            .map(state -> jsonResponses.stream(HttpStatus.OK, acceptEncoding,
+                generator -> writeMails(generator, state, fields, maxResults, folders)))
+            .onErrorResume(e -> Mono.just(jsonResponses.stream(HttpStatus.OK, acceptEncoding,
+                generator -> writeError(generator, e.getMessage()))));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Email> streamMails(
+            @RequestParam(value = "maxResults", required = false) Integer maxResults,
+            @RequestParam(value = "folderId", required = false) String folderId) {
+        // Each email is written and flushed as one NDJSON line as soon as it is decoded
+        return mcpClient.streamOutlookEmails(maxResults, folderId)
+            .contextWrite(McpDeadline.after(requestTimeout)::writeTo);
+    }
+
+    @GetMapping("/search")
+    public Mono<Map<String, Object>> searchMails(
+            @RequestParam(value = "q", required = false) String text,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "folderId", required = false) String folderId,
+            @RequestParam(value = "after", required = false) Instant after,
+            @RequestParam(value = "before", required = false) Instant before,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (mailArchive == null) {
+            return Mono.just(Map.of("status", "error", "error", "The mail archive is disabled",
+                "emails", List.of(), "count", 0));
+        }
+        // Searches every email synced so far, without calling the MCP server
+        MailQuery query = new MailQuery(text, from, folderId, after, before, Math.max(limit, 0));
+        return Mono.fromCallable(() -> mailArchive.search(query))
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(result -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("emails", result.emails());
+                response.put("count", result.emails().size());
+                response.put("total", result.total());
+                response.put("status", "success");
+                return response;
+            })
+            .onErrorResume(e -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("status", "error");
+                response.put("error", e.getMessage());
+                response.put("emails", List.of());
+                response.put("count", 0);
+                return Mono.just(response);
+            });
+    }
+
+    static void writeMails(JsonGenerator generator, MailState state, Set<EmailField> fields,
+                            Integer maxResults, List<String> folders) throws IOException {
+        List<Email> emails = state.getEmails();
+        generator.writeStartObject();
+        generator.writeStringField("status", state.getStatus());
+        generator.writeNumberField("count", emails.size());
+        if (maxResults != null) {
+            generator.writeNumberField("maxResults", maxResults);
+        }
+        if (folders.size() == 1) {
+            generator.writeStringField("folderId", folders.get(0));
+        } else if (!folders.isEmpty()) {
+            generator.writeArrayFieldStart("folderId");
+            for (String folderId : folders) {
+                generator.writeString(folderId);
             }
-            if (folderId != null) {
-                response.put("folderId", folderId);
+            generator.writeEndArray();
+        }
+        if (!state.getErrors().isEmpty()) {
+            generator.writeArrayFieldStart("errors");
+            for (FolderError error : state.getErrors()) {
+                generator.writeStartObject();
+                generator.writeStringField("folderId", error.folderId());
+                generator.writeStringField("error", error.error());
+                generator.writeEndObject();
             }
-        } catch (Exception e) {
-            response.put("status", "error");
-            response.put("error", e.getMessage());
-            response.put("emails", List.of());
-            response.put("count", 0);
+            generator.writeEndArray();
         }
-        
-        return response;
+        // Last, so the small fields above do not wait behind the emails
+        generator.writeArrayFieldStart("emails");
+        for (Email email : emails) {
+            generator.writeStartObject();
+            for (EmailField field : fields) {
+                generator.writeFieldName(FIELD_NAMES[field.ordinal()]);
+                generator.writeString(field.of(email));
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
     }
-}
 
+    private static void writeError(JsonGenerator generator, String error) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("status", "error");
+        generator.writeStringField("error", error);
+        generator.writeNumberField("count", 0);
+        generator.writeArrayFieldStart("emails");
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,28 @@
+package com.agentweave.mail;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Email as returned by the MCP server's readOutlookEmails tool
+ * Fields the server does not send are null. Serializable because LangGraph4j copies agent
+ * state, including fetched emails, by serializing it.
+ */
+public record Email(
+    String id,
+    String subject,
+    String from,
+    String to,
+    String date,
+    String folderId,
+    String body) implements Serializable {
+
+    /**
+     * Newest first, then by id
+     * Dates are ISO-8601 UTC timestamps, so string order is chronological order
+     */
+    public static final Comparator<Email> NEWEST_FIRST = Comparator
+        .comparing(Email::date, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+        .reversed()
+        .thenComparing(Email::id, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+}
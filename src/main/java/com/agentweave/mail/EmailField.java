@@ -0,0 +1,82 @@
+package com.agentweave.mail;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Field of an {@link Email}, by its name in JSON
+ * Used to project emails down to the fields a caller asked for.
+ */
+public enum EmailField {
+
+    ID("id", Email::id),
+    SUBJECT("subject", Email::subject),
+    FROM("from", Email::from),
+    TO("to", Email::to),
+    DATE("date", Email::date),
+    FOLDER_ID("folderId", Email::folderId),
+    BODY("body", Email::body);
+
+    private static final EmailField[] VALUES = values();
+
+    private final String jsonName;
+    private final Function<Email, String> accessor;
+
+    EmailField(String jsonName, Function<Email, String> accessor) {
+        this.jsonName = jsonName;
+        this.accessor = accessor;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    /**
+     * @return Value of this field of the email
+     */
+    public String of(Email email) {
+        return accessor.apply(email);
+    }
+
+    /**
+     * Parse field names, e.g. the values of a fields= request parameter
+     *
+     * @param names JSON field names; null, empty or blank selects every field
+     * @return Selected fields
+     * @throws IllegalArgumentException If a name is not an email field
+     */
+    public static Set<EmailField> parse(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(EmailField.class);
+        }
+        EnumSet<EmailField> fields = EnumSet.noneOf(EmailField.class);
+        for (String name : names) {
+            if (!name.isBlank()) {
+                fields.add(byJsonName(name.trim()));
+            }
+        }
+        return fields.isEmpty() ? EnumSet.allOf(EmailField.class) : fields;
+    }
+
+    /**
+     * Add the fields emails from several folders are merged by: id to deduplicate, date to sort
+     */
+    public static Set<EmailField> withMergeKeys(Set<EmailField> fields) {
+        EnumSet<EmailField> withKeys = EnumSet.copyOf(fields);
+        withKeys.add(ID);
+        withKeys.add(DATE);
+        return withKeys;
+    }
+
+    private static EmailField byJsonName(String name) {
+        for (EmailField field : VALUES) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown email field '" + name + "', expected one of "
+            + EnumSet.allOf(EmailField.class).stream().map(EmailField::jsonName).toList());
+    }
+}
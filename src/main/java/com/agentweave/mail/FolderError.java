@@ -0,0 +1,12 @@
+package com.agentweave.mail;
+
+import java.io.Serializable;
+
+/**
+ * A mail folder that could not be read, reported alongside the emails of the folders that were
+ * 
+ * @param folderId Folder ID as requested, or null for the server's default folder
+ * @param error Reason the folder was skipped
+ */
+public record FolderError(String folderId, String error) implements Serializable {
+}
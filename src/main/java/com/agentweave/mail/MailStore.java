@@ -0,0 +1,142 @@
+package com.agentweave.mail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local copy of synced mail folders
+ * Each folder holds the newest part of the server's folder without gaps, sorted newest first,
+ * so reading the latest N emails walks N entries however large the folder has grown. Reads
+ * never block writers; a sync merging new emails or replacing a folder is visible to reads
+ * made after it.
+ */
+public class MailStore {
+
+    /**
+     * Emails of one folder, with a separately counted size since the skip list's is O(n)
+     * The skip list is keyed on (date, id), so the stored version of each email is also kept by id
+     * for merges to find and replace.
+     */
+    private static final class Folder {
+
+        private final ConcurrentSkipListSet<Email> emails = new ConcurrentSkipListSet<>(Email.NEWEST_FIRST);
+        private final Map<String, Email> byId = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile boolean complete;
+
+        void addAll(List<Email> emails) {
+            for (Email email : emails) {
+                if (this.emails.add(email) && email.id() != null) {
+                    byId.put(email.id(), email);
+                }
+            }
+        }
+    }
+
+    private final Map<String, Folder> folders = new ConcurrentHashMap<>();
+
+    /**
+     * @param folderId Folder key
+     * @param limit Maximum number of emails
+     * @return Newest emails of the folder, newest first; empty for an unknown folder
+     */
+    public List<Email> latest(String folderId, int limit) {
+        Folder folder = folders.get(folderId);
+        if (folder == null || limit <= 0) {
+            return List.of();
+        }
+        List<Email> emails = new ArrayList<>(Math.min(limit, folder.size.get()));
+        Iterator<Email> iterator = folder.emails.iterator();
+        while (emails.size() < limit && iterator.hasNext()) {
+            emails.add(iterator.next());
+        }
+        return emails;
+    }
+
+    /**
+     * @return Newest email of the folder, or null if the folder is unknown or empty
+     */
+    public Email newest(String folderId) {
+        Folder folder = folders.get(folderId);
+        return folder == null || folder.emails.isEmpty() ? null : folder.emails.first();
+    }
+
+    public int size(String folderId) {
+        Folder folder = folders.get(folderId);
+        return folder == null ? 0 : folder.size.get();
+    }
+
+    /**
+     * Whether the folder holds every email the server has in it, not just the newest ones
+     */
+    public boolean isComplete(String folderId) {
+        Folder folder = folders.get(folderId);
+        return folder != null && folder.complete;
+    }
+
+    /**
+     * Add emails that overlap or directly follow the folder's newest ones
+     * An email already stored under the same id is replaced, so edits to its subject, body or date
+     * are picked up without waiting for a full re-read. Merges of one folder must not run
+     * concurrently; MailSync runs one sync per folder at a time.
+     *
+     * @return Number of emails that were not stored yet
+     */
+    public int merge(String folderId, List<Email> emails) {
+        Folder folder = folders.computeIfAbsent(folderId, key -> new Folder());
+        int added = 0;
+        for (Email email : emails) {
+            Email stored = email.id() != null ? folder.byId.put(email.id(), email) : null;
+            if (stored == null) {
+                if (folder.emails.add(email)) {
+                    added++;
+                }
+            } else if (!stored.equals(email)) {
+                if (Email.NEWEST_FIRST.compare(stored, email) == 0) {
+                    // Same skip list key, which add would keep as it is
+                    folder.emails.remove(stored);
+                    folder.emails.add(email);
+                } else {
+                    // The date moved; add first so reads never miss the email
+                    folder.emails.add(email);
+                    folder.emails.remove(stored);
+                }
+            }
+        }
+        folder.size.addAndGet(added);
+        return added;
+    }
+
+    /**
+     * Replace the folder's contents, e.g. after a full re-read or when a sync lost continuity
+     *
+     * @param complete Whether the emails are the folder's entire contents
+     */
+    public void replace(String folderId, List<Email> emails, boolean complete) {
+        Folder folder = new Folder();
+        folder.addAll(emails);
+        folder.size.set(folder.emails.size());
+        folder.complete = complete;
+        folders.put(folderId, folder);
+    }
+
+    public void remove(String folderId) {
+        folders.remove(folderId);
+    }
+
+    /**
+     * @return Number of emails stored across all folders
+     */
+    public long totalSize() {
+        long total = 0;
+        for (Folder folder : folders.values()) {
+            total += folder.size.get();
+        }
+        return total;
+    }
+}
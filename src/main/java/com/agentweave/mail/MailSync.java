@@ -0,0 +1,339 @@
+package com.agentweave.mail;
+
+import com.agentweave.mail.archive.MailArchive;
+import com.agentweave.mcp.McpClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Incremental sync of mail folders into the local {@link MailStore}
+ * Reads are served from the store while a folder is fresh, so a /mails call is normally a local
+ * read. Folders that have been read are kept fresh in the background. readOutlookEmails can only
+ * list the newest N emails, so a sync asks for a small page and checks it against the folder's
+ * cursor (its newest stored email): if the page reaches back to the cursor, the emails the
+ * store lacks are added and the ones it has are replaced by id. If it does not, the page is
+ * enlarged until it does; a folder that got more new mail than page-max-size is re-read from the
+ * top. Every fetched page is also added to the {@link MailArchive}, if there is one.
+ */
+public class MailSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailSync.class);
+
+    // Emails readOutlookEmails returns when maxResults is not given
+    private static final int DEFAULT_MAX_RESULTS = 10;
+    private static final int PAGE_GROWTH = 4;
+    private static final String DEFAULT_FOLDER = "";
+
+    /**
+     * Sync state of one folder
+     */
+    private static final class FolderSync {
+
+        private final String folderId;
+        // Largest number of emails asked for; the store keeps at least this many when it can
+        private final AtomicInteger depth;
+        private final AtomicReference<Mono<Void>> running = new AtomicReference<>();
+        private volatile Email cursor;
+        private volatile long syncedAt;
+        private volatile long fullSyncAt;
+        private volatile long readAt;
+        private volatile boolean synced;
+
+        FolderSync(String folderId, int depth) {
+            this.folderId = folderId;
+            this.depth = new AtomicInteger(depth);
+        }
+
+        String key() {
+            return folderId != null ? folderId : DEFAULT_FOLDER;
+        }
+    }
+
+    private final McpClient mcpClient;
+    private final MailStore store;
+    private final MailArchive archive;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int pageSize;
+    private final int maxPageSize;
+    private final int initialSize;
+    private final long maxStalenessNanos;
+    private final long idleTimeoutNanos;
+    private final long resyncIntervalNanos;
+    private final Map<String, FolderSync> folders = new ConcurrentHashMap<>();
+    private final Counter storeReads;
+    private final Counter syncReads;
+    private final Counter staleReads;
+    private final Counter newEmails;
+    private final Disposable refresh;
+
+    /**
+     * @param archive Archive that fetched emails are added to (optional)
+     * @param enabled Whether reads go through the store; when false every read calls the MCP server
+     * @param pageSize Emails asked for by an incremental sync
+     * @param maxPageSize Largest page an incremental sync grows to before re-reading the folder
+     * @param initialSize Emails read on a folder's first sync (more if a request asks for more)
+     * @param interval How often folders that are being read are synced in the background
+     * @param maxStaleness Age after which a read syncs the folder before answering
+     * @param idleTimeout Time without reads after which a folder is dropped from the store
+     * @param resyncInterval How often a folder is re-read in full, to pick up deleted or moved emails
+     * @param parallelism Maximum number of folders synced at the same time in the background
+     */
+    public MailSync(McpClient mcpClient, MailStore store, MailArchive archive, MeterRegistry meterRegistry,
+                    boolean enabled, int pageSize, int maxPageSize, int initialSize, Duration interval,
+                    Duration maxStaleness, Duration idleTimeout, Duration resyncInterval, int parallelism) {
+        this.mcpClient = mcpClient;
+        this.store = store;
+        this.archive = archive;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.maxPageSize = Math.max(maxPageSize, pageSize);
+        this.initialSize = initialSize;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.resyncIntervalNanos = resyncInterval.toNanos();
+
+        this.storeReads = readCounter(meterRegistry, "store");
+        this.syncReads = readCounter(meterRegistry, "sync");
+        this.staleReads = readCounter(meterRegistry, "stale");
+        this.newEmails = Counter.builder("mail.sync.emails")
+            .description("Emails added to the local mail store by syncs")
+            .register(meterRegistry);
+        Gauge.builder("mail.store.emails", store, MailStore::totalSize)
+            .description("Emails held in the local mail store")
+            .register(meterRegistry);
+        Gauge.builder("mail.store.folders", folders, Map::size)
+            .description("Folders kept in sync")
+            .register(meterRegistry);
+
+        this.refresh = enabled
+            ? Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                // One round at a time; a slow round delays the next instead of overlapping it
+                .concatMap(tick -> refreshAll(parallelism), 0)
+                .subscribe()
+            : null;
+    }
+
+    /**
+     * Read the newest emails of a folder
+     * Served from the store when the folder is fresh and holds enough emails, otherwise after a
+     * sync. If that sync fails, a folder synced before is served as it is.
+     *
+     * @param maxResults Maximum number of emails (optional, default: 10)
+     * @param folderId Mail folder ID (optional, default: the server's default folder)
+     * @return Mono emitting the emails, newest first
+     */
+    public Mono<List<Email>> readAsync(Integer maxResults, String folderId) {
+        return readAsync(maxResults, folderId, null);
+    }
+
+    /**
+     * Read the newest emails of a folder, needing only the given fields
+     * Without syncing, only those fields are requested and decoded; other fields are null.
+     * Emails from the store keep all fields: the store is shared by every reader.
+     *
+     * @param maxResults Maximum number of emails (optional, default: 10)
+     * @param folderId Mail folder ID (optional, default: the server's default folder)
+     * @param fields Fields the caller needs (optional, default: all)
+     * @return Mono emitting the emails, newest first
+     */
+    public Mono<List<Email>> readAsync(Integer maxResults, String folderId, Set<EmailField> fields) {
+        if (!enabled) {
+            return mcpClient.readOutlookEmailsAsync(maxResults, folderId, fields);
+        }
+        int limit = maxResults != null ? maxResults : DEFAULT_MAX_RESULTS;
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            // Stamped inside compute, so refreshAll cannot drop the folder between the stamp and the read
+            FolderSync folder = folders.compute(folderId != null ? folderId : DEFAULT_FOLDER, (key, existing) -> {
+                FolderSync stamped = existing != null ? existing : new FolderSync(folderId, initialSize);
+                stamped.readAt = now;
+                return stamped;
+            });
+            folder.depth.accumulateAndGet(limit, Math::max);
+            if (folder.synced && now - folder.syncedAt < maxStalenessNanos && covers(folder, limit)) {
+                storeReads.increment();
+                return Mono.just(store.latest(folder.key(), limit));
+            }
+            return sync(folder)
+                .then(Mono.fromSupplier(() -> {
+                    syncReads.increment();
+                    return store.latest(folder.key(), limit);
+                }))
+                .onErrorResume(e -> folder.synced, e -> {
+                    logger.warn("Sync of mail folder {} failed, serving the local copy: {}",
+                        folder.folderId, e.getMessage());
+                    staleReads.increment();
+                    return Mono.just(store.latest(folder.key(), limit));
+                });
+        });
+    }
+
+    /**
+     * Stop background syncs
+     */
+    public void close() {
+        if (refresh != null) {
+            refresh.dispose();
+        }
+    }
+
+    private boolean covers(FolderSync folder, int limit) {
+        return store.size(folder.key()) >= limit || store.isComplete(folder.key());
+    }
+
+    /**
+     * Sync the folder, joining a sync of it that is already running
+     */
+    private Mono<Void> sync(FolderSync folder) {
+        return Mono.defer(() -> {
+            Mono<Void> running = folder.running.get();
+            if (running != null) {
+                return running;
+            }
+            Mono<Void> created = Mono.defer(() -> syncNow(folder))
+                .doFinally(signal -> folder.running.set(null))
+                .cache();
+            running = folder.running.compareAndExchange(null, created);
+            return running != null ? running : created;
+        });
+    }
+
+    private Mono<Void> syncNow(FolderSync folder) {
+        long start = System.nanoTime();
+        int depth = folder.depth.get();
+        boolean full = folder.cursor == null
+            || start - folder.fullSyncAt >= resyncIntervalNanos
+            || !covers(folder, depth);
+        Mono<String> mode = full ? fullSync(folder, depth, start) : incrementalSync(folder, pageSize);
+        return mode
+            .doOnNext(syncMode -> {
+                folder.cursor = store.newest(folder.key());
+                folder.syncedAt = start;
+                folder.synced = true;
+                Timer.builder("mail.sync")
+                    .description("Mail folder syncs by kind: full, incremental or gap (re-read after too much new mail)")
+                    .tag("mode", syncMode)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            })
+            .then();
+    }
+
+    private Mono<String> fullSync(FolderSync folder, int depth, long start) {
+        return fetch(folder, depth)
+            .map(emails -> {
+                // Fewer emails than asked for means the folder has no more
+                store.replace(folder.key(), emails, emails.size() < depth);
+                folder.fullSyncAt = start;
+                return "full";
+            });
+    }
+
+    private Mono<String> incrementalSync(FolderSync folder, int page) {
+        Email cursor = folder.cursor;
+        return fetch(folder, page)
+            .flatMap(emails -> {
+                if (emails.size() < page) {
+                    // The whole folder fits in the page, so it can be taken as is
+                    store.replace(folder.key(), emails, true);
+                    return Mono.just("full");
+                }
+                if (reachesBack(emails, cursor)) {
+                    // Emails the store already has are skipped; ones that arrived late are added too
+                    newEmails.increment(store.merge(folder.key(), emails));
+                    return Mono.just("incremental");
+                }
+                if (page >= maxPageSize) {
+                    // More new mail than the largest page: the store would have a gap, so start over
+                    store.replace(folder.key(), emails, false);
+                    return Mono.just("gap");
+                }
+                return incrementalSync(folder, Math.min(page * PAGE_GROWTH, maxPageSize));
+            });
+    }
+
+    /**
+     * Read the newest emails of the folder from the MCP server and archive them
+     * Archiving is file I/O, so it runs off the event loop; a failure to archive does not fail the sync.
+     */
+    private Mono<List<Email>> fetch(FolderSync folder, int maxResults) {
+        Mono<List<Email>> emails = mcpClient.readOutlookEmailsAsync(maxResults, folder.folderId);
+        if (archive == null) {
+            return emails;
+        }
+        return emails.flatMap(page -> Mono.fromCallable(() -> {
+                try {
+                    archive.append(folder.folderId, page);
+                } catch (RuntimeException e) {
+                    logger.warn("Archiving emails of mail folder {} failed: {}", folder.folderId, e.getMessage());
+                }
+                return page;
+            })
+            .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Whether the page includes the cursor or an email no newer than it
+     */
+    private static boolean reachesBack(List<Email> emails, Email cursor) {
+        for (Email email : emails) {
+            if (Email.NEWEST_FIRST.compare(email, cursor) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> refreshAll(int parallelism) {
+        long now = System.nanoTime();
+        return Flux.fromIterable(folders.values())
+            .filter(folder -> {
+                if (now - folder.readAt > idleTimeoutNanos) {
+                    // Nobody reads it any more: stop syncing it and free its emails. readAt is checked
+                    // again under the lock readAsync stamps it under, so a read that raced this keeps them
+                    folders.computeIfPresent(folder.key(), (key, current) -> {
+                        if (current != folder || now - current.readAt <= idleTimeoutNanos) {
+                            return current;
+                        }
+                        store.remove(key);
+                        return null;
+                    });
+                    return false;
+                }
+                return folder.synced;
+            })
+            .flatMap(folder -> sync(folder)
+                .onErrorResume(e -> {
+                    logger.debug("Background sync of mail folder {} failed: {}", folder.folderId, e.getMessage());
+                    return Mono.empty();
+                }), parallelism)
+            .then();
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("mail.reads")
+            .description("Mail folder reads by source: store (local), sync (after a sync) or stale (sync failed)")
+            .tag("source", source)
+            .register(meterRegistry);
+    }
+}
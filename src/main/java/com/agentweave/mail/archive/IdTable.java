@@ -0,0 +1,102 @@
+package com.agentweave.mail.archive;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from an email id's 64-bit hash to its current doc id, without boxing
+ * Ids are hashed rather than stored, so the table holds no strings; a collision between two
+ * ids would make the later email replace the earlier one in search results.
+ */
+final class IdTable {
+
+    private static final int EMPTY = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    IdTable(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1);
+        this.keys = new long[slots];
+        this.values = new int[slots];
+        Arrays.fill(values, EMPTY);
+    }
+
+    /**
+     * @return Doc id stored for the hash, or -1
+     */
+    int get(long hash) {
+        int mask = keys.length - 1;
+        for (int slot = spread(hash) & mask; values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == hash) {
+                return values[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @return Doc id previously stored for the hash, or -1
+     */
+    int put(long hash, int doc) {
+        // Keep the load factor under one half, so probe sequences stay short
+        if (2 * (size + 1) > keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int slot = spread(hash) & mask;
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == hash) {
+                int previous = values[slot];
+                values[slot] = doc;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = hash;
+        values[slot] = doc;
+        size++;
+        return EMPTY;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != EMPTY) {
+                out.writeLong(keys[slot]);
+                out.writeInt(values[slot]);
+            }
+        }
+    }
+
+    static IdTable read(ByteBuffer in) {
+        int count = in.getInt();
+        IdTable table = new IdTable(count * 2);
+        for (int i = 0; i < count; i++) {
+            long hash = in.getLong();
+            table.put(hash, in.getInt());
+        }
+        return table;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, EMPTY);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldValues[slot] != EMPTY) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private static int spread(long hash) {
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -0,0 +1,66 @@
+package com.agentweave.mail.archive;
+
+import java.util.Arrays;
+
+/**
+ * Growable int array, used for doc-id postings and per-doc attributes without boxing
+ */
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Wrap values read from a snapshot, without copying
+     */
+    IntList(int[] values) {
+        this.values = values.length > 0 ? values : new int[1];
+        this.size = values.length;
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Insert a value at the index, shifting the following values up
+     */
+    void insert(int index, int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int last() {
+        return values[size - 1];
+    }
+
+    /**
+     * Backing array; only the first {@link #size()} values are valid
+     */
+    int[] array() {
+        return values;
+    }
+}
@@ -0,0 +1,46 @@
+package com.agentweave.mail.archive;
+
+import java.util.Arrays;
+
+/**
+ * Growable long array, used for per-doc addresses, dates and hashes without boxing
+ */
+final class LongList {
+
+    private long[] values;
+    private int size;
+
+    LongList() {
+        this.values = new long[16];
+    }
+
+    /**
+     * Wrap values read from a snapshot, without copying
+     */
+    LongList(long[] values) {
+        this.values = values.length > 0 ? values : new long[1];
+        this.size = values.length;
+    }
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Backing array; only the first {@link #size()} values are valid
+     */
+    long[] array() {
+        return values;
+    }
+}
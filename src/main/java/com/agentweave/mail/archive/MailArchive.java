@@ -0,0 +1,236 @@
+package com.agentweave.mail.archive;
+
+import com.agentweave.mail.Email;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent archive of every email the mail sync has fetched, searchable by text, sender,
+ * folder and date
+ * Emails are appended to a memory-mapped segment log, so their text lives in the page cache
+ * rather than on the heap; the indexes ({@link MailIndex}) hold only primitive arrays and
+ * dictionaries. The index is checkpointed to a snapshot file, so reopening maps the snapshot
+ * and replays only the records appended after it instead of re-indexing the whole log.
+ * An email that is fetched again unchanged is not written again; a changed one is appended
+ * and replaces the earlier version in search results.
+ */
+public class MailArchive implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailArchive.class);
+
+    private static final String SNAPSHOT = "index.snapshot";
+    private static final int MAX_LIMIT = 1000;
+
+    private final Path snapshot;
+    private final SegmentLog log;
+    private final MailIndex index;
+    // Appends take the write lock; searches share the read lock, also while a snapshot is written
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final Timer searchTimer;
+    private final Disposable checkpoints;
+    private long checkpointed;
+
+    /**
+     * @param directory Directory of the segment files and the index snapshot
+     * @param segmentSize Size of a segment file; a record larger than this gets a segment of its own
+     * @param checkpointInterval How often the log is forced to disk and the index snapshot rewritten
+     */
+    public MailArchive(Path directory, int segmentSize, Duration checkpointInterval, MeterRegistry meterRegistry) {
+        long start = System.nanoTime();
+        this.snapshot = directory.resolve(SNAPSHOT);
+        this.log = new SegmentLog(directory, segmentSize);
+
+        MailIndex restored = null;
+        try {
+            restored = MailIndex.read(snapshot);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Mail archive index snapshot {} is unreadable, re-indexing: {}", snapshot, e.getMessage());
+        }
+        if (restored != null && !log.contains(restored.watermark())) {
+            logger.warn("Mail archive index snapshot {} is ahead of the log, re-indexing", snapshot);
+            restored = null;
+        }
+        this.index = restored != null ? restored : new MailIndex();
+        this.checkpointed = restored != null ? restored.watermark() : -1;
+
+        int[] replayed = new int[1];
+        log.replay(index.watermark(), (address, payload) -> {
+            index.add(decode(payload), address, SegmentLog.next(address, payload.length));
+            replayed[0]++;
+        });
+        index.flush();
+        logger.info("Opened mail archive {} with {} emails in {} ms (snapshot: {}, records replayed: {})",
+            directory, index.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            restored != null ? "loaded" : "none", replayed[0]);
+
+        this.searchTimer = Timer.builder("mail.archive.search")
+            .description("Mail archive searches")
+            .register(meterRegistry);
+        Gauge.builder("mail.archive.emails", this, MailArchive::size)
+            .description("Emails in the mail archive, counting only the latest version of each")
+            .register(meterRegistry);
+
+        this.checkpoints = Flux.interval(checkpointInterval, checkpointInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> Mono.fromRunnable(this::checkpoint)
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    logger.warn("Mail archive checkpoint failed: {}", e.getMessage());
+                    return Mono.empty();
+                }), 0)
+            .subscribe();
+    }
+
+    /**
+     * Archive fetched emails
+     *
+     * @param folderId Folder the emails were read from, recorded for emails that carry none
+     * @return Number of emails that were new or changed
+     */
+    public int append(String folderId, List<Email> emails) {
+        // Oldest first, so the date index is appended to rather than inserted into
+        List<Email> ordered = new ArrayList<>(emails);
+        ordered.sort(Email.NEWEST_FIRST.reversed());
+        int added = 0;
+        lock.writeLock().lock();
+        try {
+            for (Email email : ordered) {
+                if (email.folderId() == null && folderId != null) {
+                    email = new Email(email.id(), email.subject(), email.from(), email.to(), email.date(),
+                        folderId, email.body());
+                }
+                if (index.contains(email)) {
+                    continue;
+                }
+                long address = log.append(encode(email));
+                index.add(email, address, log.end());
+                added++;
+            }
+            index.flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return added;
+    }
+
+    /**
+     * @return Matching emails, newest first
+     */
+    public MailSearchResult search(MailQuery query) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            MailIndex.Hits hits = index.search(query.text(), query.from(), query.folderId(), query.after(),
+                query.before(), Math.min(query.limit(), MAX_LIMIT));
+            List<Email> emails = new ArrayList<>(hits.docs().length);
+            for (int doc : hits.docs()) {
+                emails.add(decode(log.read(index.address(doc))));
+            }
+            return new MailSearchResult(emails, hits.total());
+        } finally {
+            lock.readLock().unlock();
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Force the log to disk and write the index snapshot, if anything was appended since the last one
+     */
+    public void checkpoint() {
+        checkpointLock.lock();
+        lock.readLock().lock();
+        try {
+            if (index.watermark() == checkpointed) {
+                return;
+            }
+            // Records first: the snapshot must never cover records that are not on disk
+            log.force();
+            index.write(snapshot);
+            checkpointed = index.watermark();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing mail archive snapshot " + snapshot, e);
+        } finally {
+            lock.readLock().unlock();
+            checkpointLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        checkpoints.dispose();
+        checkpoint();
+        lock.writeLock().lock();
+        try {
+            log.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * An email as its seven fields, each a length-prefixed UTF-8 string (length -1 for null)
+     */
+    private static byte[] encode(Email email) {
+        String[] fields = {email.id(), email.subject(), email.from(), email.to(), email.date(),
+            email.folderId(), email.body()};
+        byte[][] bytes = new byte[fields.length][];
+        int length = 0;
+        for (int i = 0; i < fields.length; i++) {
+            bytes[i] = fields[i] != null ? fields[i].getBytes(StandardCharsets.UTF_8) : null;
+            length += Integer.BYTES + (bytes[i] != null ? bytes[i].length : 0);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] field : bytes) {
+            buffer.putInt(field != null ? field.length : -1);
+            if (field != null) {
+                buffer.put(field);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static Email decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        return new Email(string(buffer), string(buffer), string(buffer), string(buffer), string(buffer),
+            string(buffer), string(buffer));
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,607 @@
+package com.agentweave.mail.archive;
+
+import com.agentweave.mail.Email;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory indexes over the archived emails, keyed by doc id (the order emails were archived in)
+ * Per-doc attributes are primitive arrays; sender, folder and subject/body terms map to int ids
+ * with sorted doc-id postings; a date index keeps doc ids sorted by date. Nothing here holds an
+ * email's text: matches are read back from the segment log by address. The whole index is
+ * written to a snapshot file and read back in bulk from a mapping when the archive reopens.
+ */
+final class MailIndex {
+
+    private static final int MAGIC = 0x4D41494C;
+    private static final int VERSION = 1;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40;
+    // Out-of-order docs held back before they are merged into the date index in one pass
+    private static final int MAX_PENDING = 1024;
+
+    /**
+     * Doc ids of a search, newest first, and the number of docs that matched in total
+     */
+    record Hits(int[] docs, int total) {
+    }
+
+    /**
+     * Names mapped to dense int ids, each with the postings of the docs that carry it
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<IntList> postings = new ArrayList<>();
+
+        IntList postings(String name) {
+            Integer id = ids.get(name);
+            return id != null ? postings.get(id) : null;
+        }
+
+        int add(String name, int doc) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+                postings.add(new IntList());
+            }
+            postings.get(id).add(doc);
+            return id;
+        }
+    }
+
+    private final LongList addresses;
+    private final LongList dates;
+    private final LongList contentHashes;
+    private final IntList senders;
+    private final IntList folders;
+    private final BitSet deleted;
+    private final IdTable ids;
+    private final Dictionary senderNames;
+    private final Dictionary folderNames;
+    private final Dictionary terms;
+    private IntList byDate;
+    private IntList pending = new IntList(16);
+    private long watermark;
+
+    MailIndex() {
+        this.addresses = new LongList();
+        this.dates = new LongList();
+        this.contentHashes = new LongList();
+        this.senders = new IntList(16);
+        this.folders = new IntList(16);
+        this.deleted = new BitSet();
+        this.ids = new IdTable(1024);
+        this.senderNames = new Dictionary();
+        this.folderNames = new Dictionary();
+        this.terms = new Dictionary();
+        this.byDate = new IntList(16);
+    }
+
+    /**
+     * Log address up to which records are indexed
+     */
+    long watermark() {
+        return watermark;
+    }
+
+    int size() {
+        return addresses.size() - deleted.cardinality();
+    }
+
+    long address(int doc) {
+        return addresses.get(doc);
+    }
+
+    /**
+     * Whether an email with the same id and the same content is already indexed
+     */
+    boolean contains(Email email) {
+        int doc = ids.get(idHash(email));
+        return doc >= 0 && contentHashes.get(doc) == contentHash(email);
+    }
+
+    /**
+     * Index an email written to the log, replacing an earlier version with the same id
+     *
+     * @param address Log address of the record
+     * @param next Log address following the record
+     */
+    void add(Email email, long address, long next) {
+        int doc = addresses.size();
+        long idHash = idHash(email);
+        int previous = ids.put(idHash, doc);
+        if (previous >= 0) {
+            deleted.set(previous);
+        }
+        long date = epochMillis(email.date());
+        addresses.add(address);
+        dates.add(date);
+        contentHashes.add(contentHash(email));
+        senders.add(email.from() != null ? senderNames.add(normalize(email.from()), doc) : -1);
+        folders.add(email.folderId() != null ? folderNames.add(email.folderId(), doc) : -1);
+        for (String term : tokenize(email.subject(), email.body())) {
+            terms.add(term, doc);
+        }
+        insertByDate(doc, date);
+        watermark = next;
+    }
+
+    /**
+     * Merge docs that arrived out of date order into the date index
+     * Must be called after a batch of {@link #add} calls, before the index is searched or written.
+     */
+    void flush() {
+        if (pending.size() == 0) {
+            return;
+        }
+        IntList merged = new IntList(byDate.size() + pending.size());
+        int i = 0;
+        int j = 0;
+        while (i < byDate.size() || j < pending.size()) {
+            // Equal dates keep archive order, so the pending (later) doc goes second
+            if (j == pending.size() || (i < byDate.size()
+                    && dates.get(byDate.get(i)) <= dates.get(pending.get(j)))) {
+                merged.add(byDate.get(i++));
+            } else {
+                merged.add(pending.get(j++));
+            }
+        }
+        byDate = merged;
+        pending = new IntList(16);
+    }
+
+    /**
+     * Find emails matching all given criteria, newest first
+     *
+     * @param text Words that must all occur in the subject or body (optional)
+     * @param from Sender, matched case-insensitively (optional)
+     * @param folderId Folder ID (optional)
+     * @param after Earliest date, inclusive (optional)
+     * @param before Latest date, exclusive (optional)
+     * @param limit Maximum number of doc ids returned
+     */
+    Hits search(String text, String from, String folderId, Instant after, Instant before, int limit) {
+        long lo = after != null ? after.toEpochMilli() : Long.MIN_VALUE;
+        long hi = before != null ? before.toEpochMilli() : Long.MAX_VALUE;
+
+        List<IntList> lists = new ArrayList<>();
+        if (from != null && !from.isBlank() && !addPostings(lists, senderNames, normalize(from))) {
+            return new Hits(new int[0], 0);
+        }
+        if (folderId != null && !folderId.isBlank() && !addPostings(lists, folderNames, folderId)) {
+            return new Hits(new int[0], 0);
+        }
+        for (String term : tokenize(text, null)) {
+            if (!addPostings(lists, terms, term)) {
+                return new Hits(new int[0], 0);
+            }
+        }
+        if (lists.isEmpty()) {
+            return byDateRange(lo, hi, limit);
+        }
+
+        // Intersect from the shortest list, so the work is bounded by the rarest criterion
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        IntList matches = lists.get(0);
+        for (int i = 1; i < lists.size() && matches.size() > 0; i++) {
+            matches = intersect(matches, lists.get(i));
+        }
+        IntList live = new IntList(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            int doc = matches.get(i);
+            long date = dates.get(doc);
+            if (!deleted.get(doc) && date >= lo && date < hi) {
+                live.add(doc);
+            }
+        }
+        return new Hits(newest(live, limit), live.size());
+    }
+
+    /**
+     * Write the index to a snapshot file, replacing the previous one atomically
+     * The log must have been forced first, since the snapshot covers records up to the watermark.
+     */
+    void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(watermark);
+            int docs = addresses.size();
+            out.writeInt(docs);
+            writeLongs(out, addresses.array(), docs);
+            writeLongs(out, dates.array(), docs);
+            writeLongs(out, contentHashes.array(), docs);
+            writeInts(out, senders.array(), docs);
+            writeInts(out, folders.array(), docs);
+            writeInts(out, byDate.array(), docs);
+            long[] deletedWords = deleted.toLongArray();
+            out.writeInt(deletedWords.length);
+            writeLongs(out, deletedWords, deletedWords.length);
+            ids.write(out);
+            writeDictionary(out, senderNames);
+            writeDictionary(out, folderNames);
+            writeDictionary(out, terms);
+            out.flush();
+            // Otherwise the rename can reach the disk before the data, leaving an empty snapshot
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a snapshot written by {@link #write(Path)}
+     *
+     * @return The index, or null if the file is missing or not a snapshot of this version
+     */
+    static MailIndex read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 16 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return null;
+            }
+            long watermark = in.getLong();
+            int docs = in.getInt();
+            MailIndex index = new MailIndex(
+                new LongList(readLongs(in, docs)),
+                new LongList(readLongs(in, docs)),
+                new LongList(readLongs(in, docs)),
+                new IntList(readInts(in, docs)),
+                new IntList(readInts(in, docs)),
+                new IntList(readInts(in, docs)),
+                BitSet.valueOf(readLongs(in, in.getInt())),
+                IdTable.read(in),
+                readDictionary(in),
+                readDictionary(in),
+                readDictionary(in));
+            index.watermark = watermark;
+            return index;
+        }
+    }
+
+    private MailIndex(LongList addresses, LongList dates, LongList contentHashes, IntList senders,
+                      IntList folders, IntList byDate, BitSet deleted, IdTable ids,
+                      Dictionary senderNames, Dictionary folderNames, Dictionary terms) {
+        this.addresses = addresses;
+        this.dates = dates;
+        this.contentHashes = contentHashes;
+        this.senders = senders;
+        this.folders = folders;
+        this.byDate = byDate;
+        this.deleted = deleted;
+        this.ids = ids;
+        this.senderNames = senderNames;
+        this.folderNames = folderNames;
+        this.terms = terms;
+    }
+
+    private static boolean addPostings(List<IntList> lists, Dictionary dictionary, String name) {
+        IntList postings = dictionary.postings(name);
+        if (postings == null) {
+            return false;
+        }
+        lists.add(postings);
+        return true;
+    }
+
+    private Hits byDateRange(long lo, long hi, int limit) {
+        int start = lowerBound(lo);
+        int end = lowerBound(hi);
+        int[] docs = new int[Math.max(0, Math.min(limit, end - start))];
+        int found = 0;
+        int total = 0;
+        for (int i = end - 1; i >= start; i--) {
+            int doc = byDate.get(i);
+            if (deleted.get(doc)) {
+                continue;
+            }
+            if (found < docs.length) {
+                docs[found++] = doc;
+            }
+            total++;
+        }
+        return new Hits(found == docs.length ? docs : Arrays.copyOf(docs, found), total);
+    }
+
+    /**
+     * Position in the date index of the first doc dated at or after the given time
+     */
+    private int lowerBound(long date) {
+        int low = 0;
+        int high = byDate.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates.get(byDate.get(mid)) < date) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insertByDate(int doc, long date) {
+        if (pending.size() == 0 && (byDate.size() == 0 || dates.get(byDate.last()) <= date)) {
+            byDate.add(doc);
+            return;
+        }
+        // Late arrival: keep it in the small pending list, sorted, until the next flush
+        int low = 0;
+        int high = pending.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates.get(pending.get(mid)) <= date) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        pending.insert(low, doc);
+        if (pending.size() >= MAX_PENDING) {
+            flush();
+        }
+    }
+
+    /**
+     * Intersect two sorted lists, galloping through the longer one
+     */
+    private static IntList intersect(IntList shorter, IntList longer) {
+        IntList result = new IntList(shorter.size());
+        int j = 0;
+        for (int i = 0; i < shorter.size() && j < longer.size(); i++) {
+            int doc = shorter.get(i);
+            // Exponential search for the first entry >= doc, then binary search within the step
+            int step = 1;
+            int low = j;
+            while (j < longer.size() && longer.get(j) < doc) {
+                low = j + 1;
+                j = Math.min(j + step, longer.size());
+                step <<= 1;
+            }
+            int high = Math.min(j, longer.size() - 1);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (longer.get(mid) < doc) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            j = low;
+            if (j < longer.size() && longer.get(j) == doc) {
+                result.add(doc);
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The newest docs of the list, newest first, picked with a bounded min-heap on (date, doc)
+     */
+    private int[] newest(IntList docs, int limit) {
+        int capacity = Math.max(0, Math.min(limit, docs.size()));
+        int[] heap = new int[capacity];
+        int size = 0;
+        for (int i = 0; i < docs.size(); i++) {
+            int doc = docs.get(i);
+            if (size < capacity) {
+                heap[size] = doc;
+                siftUp(heap, size++);
+            } else if (capacity > 0 && newer(doc, heap[0])) {
+                heap[0] = doc;
+                siftDown(heap, size);
+            }
+        }
+        // Drain oldest first into the back of the result
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+        }
+        return result;
+    }
+
+    private boolean newer(int a, int b) {
+        long dateA = dates.get(a);
+        long dateB = dates.get(b);
+        return dateA != dateB ? dateA > dateB : a > b;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!newer(heap[parent], heap[index])) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int oldest = left + 1 < size && newer(heap[left], heap[left + 1]) ? left + 1 : left;
+            if (!newer(heap[index], heap[oldest])) {
+                return;
+            }
+            swap(heap, index, oldest);
+            index = oldest;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int value = array[i];
+        array[i] = array[j];
+        array[j] = value;
+    }
+
+    /**
+     * Lower-cased words of two to forty letters or digits, each once
+     */
+    static Set<String> tokenize(String first, String second) {
+        Set<String> tokens = new LinkedHashSet<>();
+        addTokens(tokens, first);
+        addTokens(tokens, second);
+        return tokens;
+    }
+
+    private static void addTokens(Set<String> tokens, String text) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                int length = i - start;
+                if (length >= MIN_TERM_LENGTH && length <= MAX_TERM_LENGTH) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static String normalize(String sender) {
+        return sender.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Dates are ISO-8601 timestamps; emails without a parseable date sort as the oldest
+     */
+    private static long epochMillis(String date) {
+        if (date == null) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Instant.parse(date).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(date).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                return Long.MIN_VALUE;
+            }
+        }
+    }
+
+    private static long idHash(Email email) {
+        // Without an id, an email is identified by its content
+        return email.id() != null ? hash(email.id(), 0x9E3779B97F4A7C15L) : contentHash(email);
+    }
+
+    private static long contentHash(Email email) {
+        long hash = 0xCBF29CE484222325L;
+        hash = hash(email.id(), hash);
+        hash = hash(email.subject(), hash);
+        hash = hash(email.from(), hash);
+        hash = hash(email.to(), hash);
+        hash = hash(email.date(), hash);
+        hash = hash(email.folderId(), hash);
+        return hash(email.body(), hash);
+    }
+
+    /**
+     * 64-bit FNV-1a over the string's chars, with a separator so field boundaries count
+     */
+    private static long hash(String value, long hash) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+            }
+        }
+        return (hash ^ 0xFF) * 0x100000001B3L;
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeLong(values[i]);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static long[] readLongs(MappedByteBuffer in, int count) {
+        long[] values = new long[count];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + count * Long.BYTES);
+        return values;
+    }
+
+    private static int[] readInts(MappedByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static void writeDictionary(DataOutputStream out, Dictionary dictionary) throws IOException {
+        out.writeInt(dictionary.names.size());
+        for (int id = 0; id < dictionary.names.size(); id++) {
+            byte[] name = dictionary.names.get(id).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            IntList postings = dictionary.postings.get(id);
+            out.writeInt(postings.size());
+            writeInts(out, postings.array(), postings.size());
+        }
+    }
+
+    private static Dictionary readDictionary(MappedByteBuffer in) {
+        Dictionary dictionary = new Dictionary();
+        int count = in.getInt();
+        for (int id = 0; id < count; id++) {
+            byte[] name = new byte[in.getInt()];
+            in.get(name);
+            String value = new String(name, StandardCharsets.UTF_8);
+            dictionary.ids.put(value, id);
+            dictionary.names.add(value);
+            dictionary.postings.add(new IntList(readInts(in, in.getInt())));
+        }
+        return dictionary;
+    }
+}
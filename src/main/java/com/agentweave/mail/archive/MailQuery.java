@@ -0,0 +1,22 @@
+package com.agentweave.mail.archive;
+
+import java.time.Instant;
+
+/**
+ * Criteria of an archive search; null criteria match every email
+ *
+ * @param text Words that must all occur in the subject or body, in any order and case
+ * @param from Sender, matched exactly but case-insensitively
+ * @param folderId Folder ID
+ * @param after Earliest date, inclusive
+ * @param before Latest date, exclusive
+ * @param limit Maximum number of emails returned
+ */
+public record MailQuery(
+    String text,
+    String from,
+    String folderId,
+    Instant after,
+    Instant before,
+    int limit) {
+}
@@ -0,0 +1,13 @@
+package com.agentweave.mail.archive;
+
+import com.agentweave.mail.Email;
+
+import java.util.List;
+
+/**
+ * Emails found by an archive search, newest first
+ *
+ * @param total Number of emails that matched, of which at most the query's limit are returned
+ */
+public record MailSearchResult(List<Email> emails, int total) {
+}
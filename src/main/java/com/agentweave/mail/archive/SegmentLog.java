@@ -0,0 +1,216 @@
+package com.agentweave.mail.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of records in memory-mapped segment files
+ * Each record is framed as [length][CRC32C][payload] and addressed by (segment, position) packed
+ * into a long. Segments are pre-sized and mapped whole, so record bytes stay off-heap and are
+ * only copied when read. A segment is sealed once the next record does not fit; only the last
+ * one is scanned on open, up to the first empty or torn record.
+ */
+final class SegmentLog implements AutoCloseable {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    /**
+     * Receives records during a replay
+     */
+    @FunctionalInterface
+    interface RecordConsumer {
+
+        void accept(long address, byte[] payload);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int writePosition;
+    private int unforcedFrom;
+
+    SegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing
+                    .filter(file -> file.getFileName().toString().startsWith(PREFIX))
+                    .sorted()
+                    .toList();
+            }
+            for (Path file : files) {
+                segments.add(map(file, Files.size(file)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening mail archive segments in " + directory, e);
+        }
+        if (segments.isEmpty()) {
+            addSegment(segmentSize);
+        } else {
+            writePosition = scanEnd(segments.size() - 1);
+        }
+        unforcedFrom = segments.size() - 1;
+    }
+
+    /**
+     * Append a record
+     *
+     * @return Address of the record
+     */
+    long append(byte[] payload) {
+        int length = HEADER_BYTES + payload.length;
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        // Keep room for the zero length that marks the end of the segment
+        if (writePosition + length + Integer.BYTES > segment.capacity()) {
+            segment = addSegment(Math.max(segmentSize, length + Integer.BYTES));
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int position = writePosition;
+        segment.put(position + HEADER_BYTES, payload);
+        segment.putInt(position + Integer.BYTES, (int) crc.getValue());
+        // The length goes last: a record without it is not there yet
+        segment.putInt(position, payload.length);
+        writePosition = position + length;
+        return address(segments.size() - 1, position);
+    }
+
+    /**
+     * @return Payload of the record at the address
+     */
+    byte[] read(long address) {
+        MappedByteBuffer segment = segments.get(segmentOf(address));
+        int position = positionOf(address);
+        byte[] payload = new byte[segment.getInt(position)];
+        segment.get(position + HEADER_BYTES, payload);
+        return payload;
+    }
+
+    /**
+     * Address the next record will be written at
+     */
+    long end() {
+        return address(segments.size() - 1, writePosition);
+    }
+
+    /**
+     * Address directly after a record, within the record's segment
+     */
+    static long next(long address, int payloadLength) {
+        return address + HEADER_BYTES + payloadLength;
+    }
+
+    /**
+     * Hand every record from the address to the end of the log to the consumer
+     */
+    void replay(long from, RecordConsumer consumer) {
+        for (int index = segmentOf(from); index < segments.size(); index++) {
+            MappedByteBuffer segment = segments.get(index);
+            int position = index == segmentOf(from) ? positionOf(from) : 0;
+            int end = index == segments.size() - 1 ? writePosition : segment.capacity();
+            while (position + Integer.BYTES <= end) {
+                int length = segment.getInt(position);
+                if (length <= 0) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                segment.get(position + HEADER_BYTES, payload);
+                consumer.accept(address(index, position), payload);
+                position += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    /**
+     * Whether the address is a record boundary within the log, e.g. a snapshot's watermark
+     */
+    boolean contains(long address) {
+        int index = segmentOf(address);
+        return index < segments.size() - 1
+            || (index == segments.size() - 1 && positionOf(address) <= writePosition);
+    }
+
+    /**
+     * Write appended records through to disk
+     */
+    void force() {
+        for (int index = unforcedFrom; index < segments.size(); index++) {
+            segments.get(index).force();
+        }
+        unforcedFrom = segments.size() - 1;
+    }
+
+    @Override
+    public void close() {
+        force();
+        // Mappings are released when the buffers are collected
+        segments.clear();
+    }
+
+    private int scanEnd(int index) {
+        MappedByteBuffer segment = segments.get(index);
+        int position = 0;
+        CRC32C crc = new CRC32C();
+        while (position + Integer.BYTES <= segment.capacity()) {
+            int length = segment.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > segment.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.get(position + HEADER_BYTES, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.getInt(position + Integer.BYTES)) {
+                // Torn by a crash mid-write; the next append overwrites it
+                segment.putInt(position, 0);
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private MappedByteBuffer addSegment(int size) {
+        Path file = directory.resolve(String.format("%s%06d%s", PREFIX, segments.size(), SUFFIX));
+        MappedByteBuffer segment = map(file, size);
+        segments.add(segment);
+        writePosition = 0;
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error mapping mail archive segment " + file, e);
+        }
+    }
+
+    private static long address(int segment, int position) {
+        return ((long) segment << 32) | position;
+    }
+
+    private static int segmentOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int positionOf(long address) {
+        return (int) address;
+    }
+}
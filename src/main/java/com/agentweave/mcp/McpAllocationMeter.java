@@ -0,0 +1,60 @@
+package com.agentweave.mcp;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures heap bytes allocated by the calling thread while encoding or decoding MCP
+ * messages, recorded per tool as the mcp.allocation distribution summary
+ * Relies on HotSpot's per-thread allocation counter; disabled when it is unavailable.
+ */
+@Component
+public class McpAllocationMeter {
+
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public McpAllocationMeter(MeterRegistry meterRegistry,
+                              @Value("${mcp.metrics.allocation.enabled:false}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.threadMXBean = enabled
+            && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported()
+            ? bean
+            : null;
+    }
+
+    /**
+     * Start a measurement on the current thread
+     * 
+     * @return Opaque start mark, or -1 when measuring is disabled
+     */
+    public long start() {
+        return threadMXBean != null ? threadMXBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Record the bytes allocated on the current thread since the start mark
+     * 
+     * @param start Mark returned by {@link #start()} on the same thread
+     * @param tool Tool name tag
+     * @param phase "encode" or "decode"
+     */
+    public void record(long start, String tool, String phase) {
+        if (start < 0) {
+            return;
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - start;
+        DistributionSummary.builder("mcp.allocation")
+            .description("Heap bytes allocated per MCP call while encoding or decoding")
+            .baseUnit("bytes")
+            .tag("tool", tool)
+            .tag("phase", phase)
+            .register(meterRegistry)
+            .record(allocated);
+    }
+}
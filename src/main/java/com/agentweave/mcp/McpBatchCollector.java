@@ -0,0 +1,104 @@
+package com.agentweave.mcp;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Micro-batching collector for MCP tool calls
+ * Single calls arriving within a short window are merged into one JSON-RPC batch request.
+ * A batch is flushed when it reaches the maximum size or when the window elapses,
+ * whichever comes first.
+ */
+class McpBatchCollector {
+
+    private record Pending(ToolCall call, MonoSink<String> sink) {
+    }
+
+    private final Function<List<ToolCall>, Mono<List<McpClient.Outcome>>> sender;
+    private final Duration window;
+    private final int maxSize;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    McpBatchCollector(Function<List<ToolCall>, Mono<List<McpClient.Outcome>>> sender, Duration window, int maxSize) {
+        this.sender = sender;
+        this.window = window;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Queue a call for the next batch
+     * 
+     * @param call Tool call to execute
+     * @return Mono emitting the result of this call once its batch completes
+     */
+    Mono<String> submit(ToolCall call) {
+        return Mono.create(sink -> {
+            Pending pending = new Pending(call, sink);
+            // A caller that gives up before the flush leaves the batch, so it takes no slot in it
+            sink.onCancel(() -> {
+                if (queue.remove(pending)) {
+                    size.decrementAndGet();
+                }
+            });
+            queue.add(pending);
+            if (size.incrementAndGet() >= maxSize) {
+                flush();
+            } else {
+                scheduleFlush();
+            }
+        });
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            Schedulers.parallel().schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<Pending> batch = new ArrayList<>(maxSize);
+        Pending pending;
+        while (batch.size() < maxSize && (pending = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(pending);
+        }
+        // Calls that did not fit wait for the next window
+        if (size.get() > 0) {
+            scheduleFlush();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<ToolCall> calls = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            calls.add(p.call());
+        }
+        sender.apply(calls).subscribe(
+            outcomes -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    McpClient.Outcome outcome = outcomes.get(i);
+                    if (outcome.error() != null) {
+                        batch.get(i).sink().error(outcome.error());
+                    } else {
+                        batch.get(i).sink().success(outcome.result());
+                    }
+                }
+            },
+            error -> batch.forEach(p -> p.sink().error(error)));
+    }
+}
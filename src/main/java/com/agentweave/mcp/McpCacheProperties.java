@@ -0,0 +1,86 @@
+package com.agentweave.mcp;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the MCP tool-result cache (mcp.cache.*)
+ * Only tools listed under mcp.cache.tools are cached
+ */
+@Component
+@ConfigurationProperties(prefix = "mcp.cache")
+public class McpCacheProperties {
+
+    private boolean enabled = true;
+
+    /** Upper bound on the summed size of cached results, in characters */
+    private long maxWeight = 16 * 1024 * 1024;
+
+    private Map<String, ToolPolicy> tools = new HashMap<>();
+
+    /**
+     * Caching policy of a single tool
+     */
+    public static class ToolPolicy {
+
+        private boolean cacheable = true;
+
+        /** How long a result is served as fresh */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /** How long a result may still be served after its TTL while it is refreshed in the background */
+        private Duration staleWhileRevalidate = Duration.ZERO;
+
+        public boolean isCacheable() {
+            return cacheable;
+        }
+
+        public void setCacheable(boolean cacheable) {
+            this.cacheable = cacheable;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public Map<String, ToolPolicy> getTools() {
+        return tools;
+    }
+
+    public void setTools(Map<String, ToolPolicy> tools) {
+        this.tools = tools;
+    }
+}
@@ -0,0 +1,207 @@
+package com.agentweave.mcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of the MCP server
+ * Tracks the outcome of the last window-size calls. Once at least minimum-calls have been
+ * seen and the share of server failures (timeouts, transport errors, 5xx/429) reaches the
+ * threshold, the circuit opens and calls fail at once with {@link McpRejectedException}.
+ * After open-duration a few trial calls are let through (half-open): if they all succeed
+ * the circuit closes, if one fails it opens again.
+ * A call cancelled after running for at least slow-call-threshold, e.g. by the request
+ * deadline, counts as a failure: a hung server otherwise only ever shows up as cancels.
+ */
+@Component
+public class McpCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final long slowCallThresholdNanos;
+    private final Counter rejected;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public McpCircuitBreaker(MeterRegistry meterRegistry,
+                             @Value("${mcp.circuit.enabled:true}") boolean enabled,
+                             @Value("${mcp.circuit.window-size:50}") int windowSize,
+                             @Value("${mcp.circuit.minimum-calls:20}") int minimumCalls,
+                             @Value("${mcp.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                             @Value("${mcp.circuit.open-duration:10s}") Duration openDuration,
+                             @Value("${mcp.circuit.half-open-calls:3}") int halfOpenCalls,
+                             @Value("${mcp.circuit.slow-call-threshold:5s}") Duration slowCallThreshold) {
+        this.enabled = enabled;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.slowCallThresholdNanos = slowCallThreshold.toNanos();
+
+        Gauge.builder("mcp.circuit.state", this, breaker -> breaker.state.ordinal())
+            .description("MCP circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("mcp.circuit.rejected")
+            .description("MCP calls failed fast while the circuit was open")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the call unless the circuit is open
+     *
+     * @param call Starts the upstream call
+     * @return Mono of the call, or an {@link McpRejectedException} while the circuit is open
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            State admittedIn = tryAcquire();
+            if (admittedIn == null) {
+                rejected.increment();
+                return Mono.error(new McpRejectedException("MCP circuit breaker is open"));
+            }
+            long start = System.nanoTime();
+            return call.get()
+                .doOnSuccess(result -> onResult(admittedIn, false))
+                .doOnError(e -> onResult(admittedIn, McpFailures.isServerFailure(e)))
+                .doOnCancel(() -> onCancel(admittedIn, System.nanoTime() - start));
+        });
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return State the call was admitted in, or null if it is rejected
+     */
+    private State tryAcquire() {
+        if (state == State.CLOSED) {
+            return State.CLOSED;
+        }
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openDurationNanos) {
+                    return null;
+                }
+                transition(State.HALF_OPEN);
+                trialsStarted = 0;
+                trialsSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsStarted >= halfOpenCalls) {
+                    return null;
+                }
+                trialsStarted++;
+                return State.HALF_OPEN;
+            }
+            return State.CLOSED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onResult(State admittedIn, boolean failed) {
+        lock.lock();
+        try {
+            if (admittedIn == State.HALF_OPEN) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                if (failed) {
+                    open();
+                } else if (++trialsSucceeded >= halfOpenCalls) {
+                    resetWindow();
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+            // Calls admitted before the circuit opened say nothing about the trial period
+            if (state != State.CLOSED) {
+                return;
+            }
+            if (recorded == outcomes.length && outcomes[next]) {
+                failures--;
+            }
+            outcomes[next] = failed;
+            if (failed) {
+                failures++;
+            }
+            next = (next + 1) % outcomes.length;
+            recorded = Math.min(recorded + 1, outcomes.length);
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onCancel(State admittedIn, long elapsedNanos) {
+        // Cancelled by a deadline or timeout outside the breaker after hanging this long
+        if (elapsedNanos >= slowCallThresholdNanos) {
+            onResult(admittedIn, true);
+            return;
+        }
+        if (admittedIn != State.HALF_OPEN) {
+            return;
+        }
+        lock.lock();
+        try {
+            // A cancelled trial (e.g. a losing hedge) frees its slot for another trial
+            if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+                trialsStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        resetWindow();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    private void transition(State target) {
+        if (state != target) {
+            logger.warn("MCP circuit breaker {} -> {}", state, target);
+            state = target;
+        }
+    }
+}
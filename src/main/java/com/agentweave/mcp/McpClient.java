@@ -1,15 +1,38 @@
 package com.agentweave.mcp;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.agentweave.mail.Email;
+import com.agentweave.mail.EmailField;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * MCP Client service to communicate with MCP server
@@ -19,118 +42,438 @@ public class McpClient {
 
     private static final Logger logger = LoggerFactory.getLogger(McpClient.class);
 
-    private final WebClient webClient;
+    // JSON-RPC errors a server without batch support answers an array with
+    private static final int INVALID_REQUEST = -32600;
+    private static final int METHOD_NOT_FOUND = -32601;
+
     private final ObjectMapper objectMapper;
-    private final String mcpServerUrl;
+    private final McpRouter router;
+    private final McpResponseDecoder responseDecoder;
+    private final McpRequestWriter requestWriter;
+    private final McpAllocationMeter allocationMeter;
+    private final McpTrafficLogger trafficLogger;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final McpToolCache toolCache;
+    private final McpSingleFlight singleFlight;
+    private final McpBatchCollector batchCollector;
+    private final McpConcurrencyLimiter concurrencyLimiter;
+    private final McpCircuitBreaker circuitBreaker;
+    private final McpHedging hedging;
+    private final Duration callTimeout;
+    private final boolean emailFieldsArgument;
+    private final AtomicLong requestIds = new AtomicLong(System.currentTimeMillis());
+    private final AtomicBoolean batchSupported = new AtomicBoolean(true);
+
+    /**
+     * Outcome of one call within a batch: either a result or an error
+     */
+    record Outcome(String result, Throwable error) {
+    }
 
-    public McpClient(@Value("${mcp.server.url:http://localhost:9091/mcp}") String mcpServerUrl) {
-        this.mcpServerUrl = mcpServerUrl;
+    /**
+     * @param mcpServerUrls MCP endpoints; with more than one, calls are load-balanced across them
+     * @param emailFieldsArgument Whether the server's readOutlookEmails tool accepts a fields argument
+     */
+    public McpClient(@Value("${mcp.server.url:http://localhost:9091/mcp}") List<String> mcpServerUrls,
+                     @Value("${mcp.protocol-version:2025-03-26}") String protocolVersion,
+                     @Value("${mcp.batch.enabled:false}") boolean batchEnabled,
+                     @Value("${mcp.batch.window:2ms}") Duration batchWindow,
+                     @Value("${mcp.batch.max-size:32}") int batchMaxSize,
+                     @Value("${mcp.http.max-in-memory-size:16MB}") DataSize maxInMemorySize,
+                     @Value("${mcp.call.timeout:30s}") Duration callTimeout,
+                     @Value("${mcp.read-outlook-emails.fields-argument:false}") boolean emailFieldsArgument,
+                     McpConnectionPool connectionPool,
+                     McpToolCache toolCache,
+                     McpSingleFlight singleFlight,
+                     McpConcurrencyLimiter concurrencyLimiter,
+                     McpCircuitBreaker circuitBreaker,
+                     McpHedging hedging,
+                     McpRoutingProperties routingProperties,
+                     McpAllocationMeter allocationMeter,
+                     McpTrafficLogger trafficLogger,
+                     MeterRegistry meterRegistry,
+                     ObservationRegistry observationRegistry) {
         this.objectMapper = new ObjectMapper();
-        this.webClient = WebClient.builder()
-            .baseUrl(mcpServerUrl)
-            .build();
+        WebClient.Builder webClientBuilder = WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(connectionPool.httpClient()))
+            // Tool results (e.g. long email listings) easily exceed the 256KB codec default
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) maxInMemorySize.toBytes()))
+            // Records http.client.requests and propagates the trace context (traceparent) to the server
+            .observationRegistry(observationRegistry);
+        List<McpEndpoint> endpoints = new ArrayList<>();
+        for (String url : mcpServerUrls) {
+            WebClient webClient = webClientBuilder.clone().baseUrl(url.trim()).build();
+            // Each replica gets its own session; session ids are not shared between servers
+            endpoints.add(new McpEndpoint(url.trim(), webClient,
+                new McpSessionManager(webClient, objectMapper, protocolVersion),
+                routingProperties.getDecayTime().toNanos()));
+        }
+        this.router = new McpRouter(endpoints, routingProperties, meterRegistry);
+        this.responseDecoder = new McpResponseDecoder(objectMapper, allocationMeter);
+        this.requestWriter = new McpRequestWriter(objectMapper);
+        this.allocationMeter = allocationMeter;
+        this.trafficLogger = trafficLogger;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.toolCache = toolCache;
+        this.singleFlight = singleFlight;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.hedging = hedging;
+        this.callTimeout = callTimeout;
+        this.emailFieldsArgument = emailFieldsArgument;
+        this.batchCollector = batchEnabled
+            ? new McpBatchCollector(this::sendBatch, batchWindow, batchMaxSize)
+            : null;
+    }
+
+    @PreDestroy
+    public void close() {
+        router.close();
     }
 
     /**
      * Execute a tool on the MCP server
-     * Spring AI MCP uses JSON-RPC 2.0 format with tools/call method
-     * For sync HTTP streamable MCP server, the request structure includes _meta with progressToken
+     * Blocking variant of {@link #executeToolAsync(String, Map)}
      * 
      * @param toolName Name of the tool to execute
      * @param arguments Arguments for the tool (as a map)
      * @return Result from the tool execution
      */
     public String executeTool(String toolName, Map<String, Object> arguments) {
-        try {
-            // Create MCP JSON-RPC 2.0 tool execution request with correct structure
-            // for sync HTTP streamable MCP server
-            long requestId = System.currentTimeMillis();
-            
-            Map<String, Object> request = new HashMap<>();
-            request.put("jsonrpc", "2.0");
-            request.put("id", requestId);
-            request.put("method", "tools/call");
-            
-            // Build params with _meta for sync HTTP streamable MCP
-            Map<String, Object> params = new HashMap<>();
-            params.put("name", toolName);
-            params.put("arguments", arguments);
-            
-            // Add _meta with progressToken for sync HTTP streamable MCP
-            Map<String, Object> meta = new HashMap<>();
-            meta.put("progressToken", requestId);
-            params.put("_meta", meta);
-            
-            request.put("params", params);
-
-            // Log MCP request payload
-            String requestPayload = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(request);
-            logger.info("MCP Request Payload:\n{}", requestPayload);
-
-            // Log MCP request headers
-            logger.info("MCP Request Headers:");
-            logger.info("  Content-Type: application/json");
-            logger.info("  Accept: application/json, text/event-stream");
-            logger.info("  URL: {}", mcpServerUrl);
-
-            // Make HTTP POST request to MCP server endpoint
-            // Include required headers for sync HTTP streamable MCP server
-            String response = webClient.post()
-                .uri("")  // Base URL already includes /mcp
-                .header("Content-Type", "application/json")
-                .header("Accept", "application/json, text/event-stream")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-
-            // Log MCP tool response
-            logger.info("MCP Tool Response:\n{}", response);
-
-            // Parse the JSON-RPC response
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            // Check for errors first
-            if (jsonResponse.has("error")) {
-                JsonNode error = jsonResponse.get("error");
-                String errorMessage = error.has("message") 
-                    ? error.get("message").asText() 
-                    : error.toString();
-                throw new RuntimeException("MCP server error: " + errorMessage);
+        return executeToolAsync(toolName, arguments).block();
+    }
+
+    /**
+     * Execute a tool on the MCP server without blocking the calling thread
+     * Spring AI MCP uses JSON-RPC 2.0 format with tools/call method
+     * For sync HTTP streamable MCP server, the request structure includes _meta with progressToken
+     * 
+     * @param toolName Name of the tool to execute
+     * @param arguments Arguments for the tool (as a map)
+     * @return Mono emitting the result from the tool execution
+     */
+    public Mono<String> executeToolAsync(String toolName, Map<String, Object> arguments) {
+        return executeToolAsync(toolName, arguments, ToolResultReader.TEXT);
+    }
+
+    /**
+     * Execute a tool on the MCP server and decode its text content with the given reader
+     * The reader sees the text straight from the response parser, so typed results are
+     * decoded in a single pass over the response bytes
+     * 
+     * @param toolName Name of the tool to execute
+     * @param arguments Arguments for the tool (as a map)
+     * @param reader Decoder for the result's text content
+     * @return Mono emitting the decoded result
+     */
+    public <T> Mono<T> executeToolAsync(String toolName, Map<String, Object> arguments, ToolResultReader<T> reader) {
+        // Capture the caller's observation and deadline now; the Mono may be subscribed on another thread
+        Observation caller = observationRegistry.getCurrentObservation();
+        McpDeadline callerDeadline = McpDeadline.current();
+        return Mono.deferContextual(context -> {
+            Observation observation = Observation.createNotStarted("mcp.tool", observationRegistry)
+                .contextualName("mcp " + toolName)
+                .lowCardinalityKeyValue("tool", toolName)
+                .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, caller))
+                .start();
+            Mono<T> call = toolCache.isCacheable(toolName)
+                ? toolCache.get(toolName, arguments, reader, () -> executeCoalescedAsync(toolName, arguments, reader))
+                : executeCoalescedAsync(toolName, arguments, reader);
+            return deadline(context.getOrDefault(McpDeadline.CONTEXT_KEY, callerDeadline), toolName, call)
+                .doOnError(observation::error)
+                .doFinally(signal -> observation.stop())
+                .contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private <T> Mono<T> executeCoalescedAsync(String toolName, Map<String, Object> arguments, ToolResultReader<T> reader) {
+        // Identical calls already in flight share one upstream request
+        return singleFlight.execute(toolName, arguments, reader,
+            () -> executeUpstreamAsync(toolName, arguments, reader));
+    }
+
+    private <T> Mono<T> executeUpstreamAsync(String toolName, Map<String, Object> arguments, ToolResultReader<T> reader) {
+        // Each attempt, including a hedge, passes the circuit breaker and takes a limiter permit
+        return hedging.execute(toolName, () -> guarded(toolName, () -> {
+            if (batchCollector != null) {
+                // Merge with concurrent calls arriving within the batch window
+                return batchCollector.submit(new ToolCall(toolName, arguments))
+                    .map(text -> readText(reader, text));
             }
-            
-            // Extract result
-            if (jsonResponse.has("result")) {
-                JsonNode result = jsonResponse.get("result");
-                
-                // Spring AI MCP returns content in result.content array
-                if (result.has("content")) {
-                    JsonNode content = result.get("content");
-                    if (content.isArray() && content.size() > 0) {
-                        JsonNode firstContent = content.get(0);
-                        if (firstContent.has("text")) {
-                            return firstContent.get("text").asText();
-                        }
-                        // If content is a string directly
-                        if (firstContent.isTextual()) {
-                            return firstContent.asText();
-                        }
+            return executeSingleAsync(toolName, arguments, reader, null);
+        }));
+    }
+
+    /**
+     * Fail fast while the circuit is open or the concurrency limit is reached
+     * Each attempt is bounded by mcp.call.timeout inside the breaker and limiter, so a hung
+     * server reaches them as a timeout rather than as a cancel from an outer timeout
+     */
+    private <T> Mono<T> guarded(String toolName, Supplier<Mono<T>> call) {
+        return circuitBreaker.execute(() -> concurrencyLimiter.execute(() -> call.get()
+            .timeout(callTimeout, Mono.error(() -> new TimeoutException(
+                "No result within " + callTimeout.toMillis() + "ms calling MCP tool: " + toolName)))));
+    }
+
+    /**
+     * Bound the call by the caller's deadline, or by mcp.call.timeout when it has none
+     */
+    private <T> Mono<T> deadline(McpDeadline deadline, String toolName, Mono<T> call) {
+        if (deadline != null) {
+            return deadline.apply(call, toolName);
+        }
+        return call.timeout(callTimeout, Mono.error(() -> new TimeoutException(
+            "No result within " + callTimeout.toMillis() + "ms calling MCP tool: " + toolName)));
+    }
+
+    /**
+     * Execute a tool on the MCP server, reporting progress notifications as they arrive
+     * Progress is only streamed when the server answers with text/event-stream
+     * 
+     * @param toolName Name of the tool to execute
+     * @param arguments Arguments for the tool (as a map)
+     * @param onProgress Listener for progress notifications matching this call's progressToken
+     * @return Mono emitting the result from the tool execution
+     */
+    public Mono<String> executeToolAsync(String toolName, Map<String, Object> arguments,
+                                         Consumer<McpProgress> onProgress) {
+        McpDeadline callerDeadline = McpDeadline.current();
+        return Mono.deferContextual(context -> deadline(context.getOrDefault(McpDeadline.CONTEXT_KEY, callerDeadline),
+            toolName, guarded(toolName, () -> executeSingleAsync(toolName, arguments, ToolResultReader.TEXT, onProgress))));
+    }
+
+    private <T> Mono<T> executeSingleAsync(String toolName, Map<String, Object> arguments,
+                                           ToolResultReader<T> reader, Consumer<McpProgress> onProgress) {
+        return Mono.defer(() -> {
+            long requestId = requestIds.incrementAndGet();
+            long mark = allocationMeter.start();
+            byte[] request = requestWriter.writeToolCall(requestId, toolName, arguments);
+            allocationMeter.record(mark, toolName, "encode");
+            long start = System.nanoTime();
+
+            String progressToken = String.valueOf(requestId);
+            return post(request, toolName, reader, 1, progress -> {
+                    if (onProgress != null && progressToken.equals(progress.progressToken())) {
+                        onProgress.accept(progress);
                     }
+                })
+                .map(responses -> {
+                    if (responses.isEmpty()) {
+                        throw new RuntimeException("MCP server closed the response without a result");
+                    }
+                    return resultOf(responses.get(0));
+                })
+                .doOnSuccess(result -> trafficLogger.logCall(toolName, requestId, request, start, result, null))
+                .doOnError(e -> {
+                    recordError(toolName, e);
+                    trafficLogger.logCall(toolName, requestId, request, start, null, e);
+                });
+        })
+        .onErrorMap(e -> new RuntimeException("Error calling MCP tool: " + toolName + " - " + e.getMessage(), e));
+    }
+
+    /**
+     * Execute several tools in one JSON-RPC batch request
+     * Blocking variant of {@link #executeToolsAsync(List)}
+     * 
+     * @param calls Tool calls to execute
+     * @return Results in the same order as the calls
+     */
+    public List<String> executeTools(List<ToolCall> calls) {
+        return executeToolsAsync(calls).block();
+    }
+
+    /**
+     * Execute several tools in one JSON-RPC batch request
+     * Responses are correlated to calls by request id. Servers that reject batches are
+     * detected once and served with one request per call from then on.
+     * 
+     * @param calls Tool calls to execute
+     * @return Mono emitting the results in the same order as the calls, or the first error
+     */
+    public Mono<List<String>> executeToolsAsync(List<ToolCall> calls) {
+        McpDeadline callerDeadline = McpDeadline.current();
+        Mono<List<Outcome>> batch = Mono.deferContextual(context -> deadline(
+            context.getOrDefault(McpDeadline.CONTEXT_KEY, callerDeadline), "batch", guarded("batch", () -> sendBatch(calls))));
+        return batch.flatMap(outcomes -> {
+            List<String> results = new ArrayList<>(outcomes.size());
+            for (int i = 0; i < outcomes.size(); i++) {
+                Outcome outcome = outcomes.get(i);
+                if (outcome.error() != null) {
+                    return Mono.error(outcome.error());
                 }
-                
-                // Fallback: check if result itself is a string
-                if (result.isTextual()) {
-                    return result.asText();
-                }
-                
-                // Return result as JSON string
-                return result.toString();
+                results.add(outcome.result());
             }
+            return Mono.just(results);
+        });
+    }
 
-            // If no result, return the full response
-            return response;
-        } catch (Exception e) {
-            throw new RuntimeException("Error calling MCP tool: " + toolName + " - " + e.getMessage(), e);
+    private Mono<List<Outcome>> sendBatch(List<ToolCall> calls) {
+        if (calls.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        if (calls.size() == 1 || !batchSupported.get()) {
+            return sendIndividually(calls);
+        }
+        return Mono.defer(() -> {
+            List<Long> ids = new ArrayList<>(calls.size());
+            for (int i = 0; i < calls.size(); i++) {
+                // Ids must be unique per request so batched responses can be correlated
+                ids.add(requestIds.incrementAndGet());
+            }
+            byte[] request = requestWriter.writeToolCalls(ids, calls);
+            long start = System.nanoTime();
+            return post(request, "batch", ToolResultReader.TEXT, calls.size(), progress -> { })
+                .map(responses -> correlate(calls, ids, responses))
+                .doOnSuccess(outcomes -> trafficLogger.logCall("batch", ids.get(0), request, start, outcomes, null))
+                .doOnError(e -> trafficLogger.logCall("batch", ids.get(0), request, start, null, e));
+        })
+        .onErrorResume(McpClient::isBatchRejected, e -> {
+            if (batchSupported.compareAndSet(true, false)) {
+                logger.warn("MCP server rejected a JSON-RPC batch, falling back to per-call requests: {}", e.getMessage());
+            }
+            return sendIndividually(calls);
+        })
+        .onErrorMap(e -> !(e instanceof BatchRejectedException),
+            e -> new RuntimeException("Error calling MCP tools in batch - " + e.getMessage(), e));
+    }
+
+    private Mono<List<Outcome>> sendIndividually(List<ToolCall> calls) {
+        return Flux.fromIterable(calls)
+            .flatMapSequential(call -> executeSingleAsync(call.name(), call.arguments(), ToolResultReader.TEXT, null)
+                .map(result -> new Outcome(result, null))
+                .onErrorResume(e -> Mono.just(new Outcome(null, e))))
+            .collectList();
+    }
+
+    private List<Outcome> correlate(List<ToolCall> calls, List<Long> ids, List<McpMessage<String>> responses) {
+        // A server without batch support answers with a single error object that has no id
+        if (responses.size() == 1 && responses.get(0).id() == null && responses.get(0).error() != null) {
+            RuntimeException error = responses.get(0).error();
+            if (error instanceof McpErrorException mcpError
+                    && (mcpError.getCode() == INVALID_REQUEST || mcpError.getCode() == METHOD_NOT_FOUND)) {
+                throw new BatchRejectedException(error.getMessage());
+            }
+            throw error;
+        }
+
+        Map<String, McpMessage<String>> responsesById = new HashMap<>();
+        for (McpMessage<String> response : responses) {
+            if (response.id() != null) {
+                responsesById.put(response.id(), response);
+            }
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            String toolName = calls.get(i).name();
+            McpMessage<String> response = responsesById.get(String.valueOf(ids.get(i)));
+            if (response == null) {
+                outcomes.add(new Outcome(null, new RuntimeException(
+                    "Error calling MCP tool: " + toolName + " - no response in batch for id " + ids.get(i))));
+                continue;
+            }
+            try {
+                outcomes.add(new Outcome(resultOf(response), null));
+            } catch (RuntimeException e) {
+                recordError(toolName, e);
+                outcomes.add(new Outcome(null, new RuntimeException(
+                    "Error calling MCP tool: " + toolName + " - " + e.getMessage(), e)));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Count a failed upstream call under mcp.errors, tagged with the JSON-RPC error code
+     * or the transport failure kind
+     */
+    private void recordError(String toolName, Throwable error) {
+        String code;
+        if (error instanceof McpErrorException mcpError) {
+            code = String.valueOf(mcpError.getCode());
+        } else if (error instanceof WebClientResponseException responseException) {
+            code = "http_" + responseException.getStatusCode().value();
+        } else if (error instanceof TimeoutException) {
+            code = "timeout";
+        } else {
+            code = "transport";
+        }
+        Counter.builder("mcp.errors")
+            .description("Failed MCP tool calls by JSON-RPC error code")
+            .tag("tool", toolName)
+            .tag("code", code)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * Whether the server refused the batch as such: a JSON-RPC invalid request or method not
+     * found for the whole array, or HTTP 400 on it. Other statuses, e.g. 401, 403 or 429, are
+     * not about batching and fail the calls as they would one by one.
+     */
+    private static boolean isBatchRejected(Throwable e) {
+        return e instanceof BatchRejectedException
+            || (e instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().value() == HttpStatus.BAD_REQUEST.value());
+    }
+
+    private static class BatchRejectedException extends RuntimeException {
+
+        BatchRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * POST a JSON-RPC payload to an MCP server endpoint within that endpoint's session
+     * Progress notifications are handed to the listener as they are decoded; the returned
+     * Mono completes once the expected number of responses has been received
+     */
+    private <T> Mono<List<McpMessage<T>>> post(byte[] payload, String tool, ToolResultReader<T> reader,
+                                               int expectedResponses, Consumer<McpProgress> onProgress) {
+        // Include required headers for sync HTTP streamable MCP server
+        // The endpoint is chosen per request; a session-expiry retry stays on the same endpoint
+        return router.execute(endpoint -> endpoint.sessionManager().withSession(session ->
+            McpSessionManager.applyHeaders(endpoint.webClient().post().uri(""), session)  // Base URL already includes /mcp
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json, text/event-stream")
+            .bodyValue(payload)
+            .exchangeToMono(response -> {
+                if (response.statusCode().isError()) {
+                    return response.createError();
+                }
+                return responseDecoder.decode(response, reader, tool)
+                    .filter(message -> {
+                        if (message.progress() != null) {
+                            onProgress.accept(message.progress());
+                            return false;
+                        }
+                        return message.isResponse();
+                    })
+                    .take(expectedResponses)
+                    .collectList();
+            })
+            .contextWrite(McpConnectionPool::markAcquireStart)));
+    }
+
+    /**
+     * Return the decoded result of a response message, or throw its error
+     */
+    private <T> T resultOf(McpMessage<T> response) {
+        if (response.error() != null) {
+            throw response.error();
+        }
+        return response.result();
+    }
+
+    private <T> T readText(ToolResultReader<T> reader, String text) {
+        try {
+            return reader.read(objectMapper.getFactory(), text);
+        } catch (IOException e) {
+            throw new RuntimeException("Error decoding MCP tool result: " + e.getMessage(), e);
         }
     }
 
@@ -142,10 +485,20 @@ public class McpClient {
      * @return Greeting message from MCP server
      */
     public String callHelloTool(String name) {
+        return callHelloToolAsync(name).block();
+    }
+
+    /**
+     * Execute the hello tool without blocking the calling thread
+     * 
+     * @param name Name to greet (currently not used by the tool, but kept for future use)
+     * @return Mono emitting the greeting message from MCP server
+     */
+    public Mono<String> callHelloToolAsync(String name) {
         // The hello tool doesn't take parameters based on the MCP server implementation
         // But we'll pass an empty arguments map for consistency
         Map<String, Object> arguments = new HashMap<>();
-        return executeTool("hello", arguments);
+        return executeToolAsync("hello", arguments);
     }
 
     /**
@@ -156,6 +509,11 @@ public class McpClient {
      * @return JSON string response containing list of emails
      */
     public String callReadOutlookEmailsTool(Integer maxResults, String folderId) {
+        return executeToolAsync("readOutlookEmails", readOutlookEmailsArguments(maxResults, folderId, null)).block();
+    }
+
+    private Map<String, Object> readOutlookEmailsArguments(Integer maxResults, String folderId,
+                                                           Set<EmailField> fields) {
         Map<String, Object> arguments = new HashMap<>();
         if (maxResults != null) {
             arguments.put("maxResults", maxResults);
@@ -163,76 +521,63 @@ public class McpClient {
         if (folderId != null && !folderId.isEmpty()) {
             arguments.put("folderId", folderId);
         }
-        return executeTool("readOutlookEmails", arguments);
+        // Let the server leave out the other fields; without support they are skipped while decoding
+        if (emailFieldsArgument && fields != null && fields.size() < EmailField.values().length) {
+            arguments.put("fields", fields.stream().map(EmailField::jsonName).toList());
+        }
+        return arguments;
     }
 
     /**
-     * Execute the readOutlookEmails tool and parse response to return list of emails
+     * Execute the readOutlookEmails tool and decode the response into emails
      * 
      * @param maxResults Maximum number of emails to retrieve (optional, default: 10)
      * @param folderId Mail folder ID (optional, default: 'inbox')
-     * @return List of email maps parsed from MCP response
+     * @return List of emails decoded from MCP response
      */
-    public java.util.List<Map<String, Object>> readOutlookEmails(Integer maxResults, String folderId) {
-        try {
-            // Call the tool using executeTool method
-            String response = callReadOutlookEmailsTool(maxResults, folderId);
-            
-            // Parse the JSON-RPC response to extract list of emails
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            // Check for errors first
-            if (jsonResponse.has("error")) {
-                JsonNode error = jsonResponse.get("error");
-                String errorMessage = error.has("message") 
-                    ? error.get("message").asText() 
-                    : error.toString();
-                throw new RuntimeException("MCP server error: " + errorMessage);
-            }
-            
-            // Extract result
-            if (jsonResponse.has("result")) {
-                JsonNode result = jsonResponse.get("result");
-                
-                // Spring AI MCP returns content in result.content array
-                if (result.has("content")) {
-                    JsonNode content = result.get("content");
-                    if (content.isArray() && content.size() > 0) {
-                        JsonNode firstContent = content.get(0);
-                        if (firstContent.has("text")) {
-                            // Parse the text content as JSON (list of emails)
-                            String textContent = firstContent.get("text").asText();
-                            JsonNode emailsJson = objectMapper.readTree(textContent);
-                            if (emailsJson.isArray()) {
-                                return objectMapper.convertValue(emailsJson, 
-                                    objectMapper.getTypeFactory().constructCollectionType(
-                                        java.util.List.class, Map.class));
-                            }
-                        }
-                        // If content is directly an array
-                        if (firstContent.isArray()) {
-                            return objectMapper.convertValue(firstContent, 
-                                objectMapper.getTypeFactory().constructCollectionType(
-                                    java.util.List.class, Map.class));
-                        }
-                    }
-                }
-                
-                // If result is directly an array
-                if (result.isArray()) {
-                    return objectMapper.convertValue(result, 
-                        objectMapper.getTypeFactory().constructCollectionType(
-                            java.util.List.class, Map.class));
-                }
-            }
-            
-            // Return empty list if parsing fails
-            logger.warn("Could not parse emails from MCP response, returning empty list");
-            return new java.util.ArrayList<>();
-        } catch (Exception e) {
-            logger.error("Error parsing readOutlookEmails response", e);
-            throw new RuntimeException("Error parsing emails from MCP response: " + e.getMessage(), e);
-        }
+    public List<Email> readOutlookEmails(Integer maxResults, String folderId) {
+        return readOutlookEmailsAsync(maxResults, folderId).block();
     }
-}
 
+    /**
+     * Execute the readOutlookEmails tool without blocking the calling thread
+     * The emails are decoded straight from the response bytes in a single pass
+     * 
+     * @param maxResults Maximum number of emails to retrieve (optional, default: 10)
+     * @param folderId Mail folder ID (optional, default: 'inbox')
+     * @return Mono emitting the list of emails decoded from MCP response
+     */
+    public Mono<List<Email>> readOutlookEmailsAsync(Integer maxResults, String folderId) {
+        return readOutlookEmailsAsync(maxResults, folderId, null);
+    }
+
+    /**
+     * Execute the readOutlookEmails tool and decode only the given fields of each email
+     * The fields are passed to the server when it accepts a fields argument; either way, the
+     * values of other fields are skipped by the decoder and left null
+     * 
+     * @param maxResults Maximum number of emails to retrieve (optional, default: 10)
+     * @param folderId Mail folder ID (optional, default: 'inbox')
+     * @param fields Fields to return (optional, default: all)
+     * @return Mono emitting the list of emails decoded from MCP response
+     */
+    public Mono<List<Email>> readOutlookEmailsAsync(Integer maxResults, String folderId, Set<EmailField> fields) {
+        return executeToolAsync("readOutlookEmails", readOutlookEmailsArguments(maxResults, folderId, fields),
+            McpEmailReader.of(fields));
+    }
+
+    /**
+     * Execute the readOutlookEmails tool and emit each email as soon as it is decoded
+     * The tool result text is received whole, and may be cached and shared with coalesced
+     * callers, so it is held in memory until the last email is emitted; only the Email objects
+     * are produced lazily, one per request from downstream, never as a list.
+     * 
+     * @param maxResults Maximum number of emails to retrieve (optional, default: 10)
+     * @param folderId Mail folder ID (optional, default: 'inbox')
+     * @return Flux of emails
+     */
+    public Flux<Email> streamOutlookEmails(Integer maxResults, String folderId) {
+        return executeToolAsync("readOutlookEmails", readOutlookEmailsArguments(maxResults, folderId, null))
+            .flatMapMany(text -> McpEmailReader.INSTANCE.stream(objectMapper.getFactory(), text));
+    }
+}
@@ -0,0 +1,126 @@
+package com.agentweave.mcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limit on concurrent outbound MCP calls (AIMD)
+ * The limit grows by about one for every limit-many successful calls while the limit is in
+ * use, and is multiplied by the backoff ratio whenever a call times out, the server answers
+ * 5xx/429, or a call takes longer than the latency threshold. A call cancelled after the
+ * latency threshold, e.g. by the request deadline, counts as such a slow call. Calls over the
+ * limit are rejected at once, so a slow server cannot pile up waiting requests in the app.
+ */
+@Component
+public class McpConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Updates are rare compared to acquires, which only read the volatile limit
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile double limit;
+    private final Counter rejected;
+
+    public McpConcurrencyLimiter(MeterRegistry meterRegistry,
+                                 @Value("${mcp.limiter.enabled:true}") boolean enabled,
+                                 @Value("${mcp.limiter.initial-limit:100}") int initialLimit,
+                                 @Value("${mcp.limiter.min-limit:10}") int minLimit,
+                                 @Value("${mcp.limiter.max-limit:1000}") int maxLimit,
+                                 @Value("${mcp.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                 @Value("${mcp.limiter.latency-threshold:5s}") Duration latencyThreshold) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("mcp.limiter.limit", this, McpConcurrencyLimiter::getLimit)
+            .description("Current adaptive limit on concurrent MCP calls")
+            .register(meterRegistry);
+        Gauge.builder("mcp.limiter.in-flight", inFlight, AtomicInteger::get)
+            .description("MCP calls currently holding a limiter permit")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("mcp.limiter.rejected")
+            .description("MCP calls rejected because the concurrency limit was reached")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the call if a permit is available, otherwise fail with {@link McpRejectedException}
+     * 
+     * @param call Starts the upstream call
+     * @return Mono of the call, holding a permit from subscription until it terminates or is cancelled
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new McpRejectedException(
+                    "MCP concurrency limit reached (" + (int) limit + " calls in flight)"));
+            }
+            long start = System.nanoTime();
+            return call.get()
+                .doOnSuccess(result -> onSample(System.nanoTime() - start, false))
+                .doOnError(e -> onSample(System.nanoTime() - start, McpFailures.isServerFailure(e)))
+                .doOnCancel(() -> onCancel(System.nanoTime() - start))
+                .doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    /**
+     * @return Current limit, rounded down when calls are admitted
+     */
+    public double getLimit() {
+        return limit;
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void onCancel(long elapsedNanos) {
+        // A quick cancel (a losing hedge, a client going away) says nothing about the server
+        if (elapsedNanos > latencyThresholdNanos) {
+            onSample(elapsedNanos, true);
+        }
+    }
+
+    private void onSample(long elapsedNanos, boolean dropped) {
+        lock.lock();
+        try {
+            if (dropped || elapsedNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlight.get() * 2 >= limit) {
+                // Only grow while the limit is actually being used, or it drifts up unchecked
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
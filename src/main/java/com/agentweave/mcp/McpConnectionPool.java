@@ -0,0 +1,118 @@
+package com.agentweave.mcp;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.Context;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pooled Reactor Netty connection provider used for all MCP traffic
+ * Connections are kept alive and reused across tool calls, so only the first call to
+ * a server pays TCP setup. Pool occupancy and acquire-wait time are exported as metrics.
+ */
+@Component
+public class McpConnectionPool {
+
+    private static final String ACQUIRE_START_KEY = McpConnectionPool.class.getName() + ".acquireStart";
+
+    private final ConnectionProvider connectionProvider;
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+    private final Timer acquireTimer;
+
+    public McpConnectionPool(
+            MeterRegistry meterRegistry,
+            @Value("${mcp.pool.max-connections:100}") int maxConnections,
+            @Value("${mcp.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${mcp.pool.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+            @Value("${mcp.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${mcp.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${mcp.pool.evict-in-background:30s}") Duration evictInBackground,
+            @Value("${mcp.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${mcp.http.h2c:false}") boolean h2c) {
+        this.meterRegistry = meterRegistry;
+        this.acquireTimer = Timer.builder("mcp.pool.acquire")
+            .description("Time an MCP request waited for a pooled connection")
+            .register(meterRegistry);
+
+        this.connectionProvider = ConnectionProvider.builder("mcp")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
+            .pendingAcquireTimeout(pendingAcquireTimeout)
+            .maxIdleTime(maxIdleTime)
+            .maxLifeTime(maxLifeTime)
+            .evictInBackground(evictInBackground)
+            .metrics(true, () -> this::registerPoolMetrics)
+            .build();
+
+        HttpClient client = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true)
+            .doOnRequest((request, connection) -> recordAcquireTime(request.currentContextView()
+                .<Long>getOrEmpty(ACQUIRE_START_KEY).orElse(null)));
+        if (h2c) {
+            // Cleartext HTTP/2 negotiated through an HTTP/1.1 upgrade, falling back to HTTP/1.1
+            client = client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        this.httpClient = client;
+    }
+
+    public HttpClient httpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Mark the start of a connection acquisition for the acquire-wait timer
+     * Must be applied with contextWrite on every request publisher using this pool
+     */
+    public static Context markAcquireStart(Context context) {
+        return context.put(ACQUIRE_START_KEY, System.nanoTime());
+    }
+
+    private void recordAcquireTime(Long startNanos) {
+        if (startNanos != null) {
+            acquireTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void registerPoolMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        String remote = String.valueOf(remoteAddress);
+        registerGauge("mcp.pool.connections.active", "Connections currently acquired by MCP requests",
+            remote, metrics, ConnectionPoolMetrics::acquiredSize);
+        registerGauge("mcp.pool.connections.idle", "Idle connections kept alive in the MCP pool",
+            remote, metrics, ConnectionPoolMetrics::idleSize);
+        registerGauge("mcp.pool.connections.total", "Connections allocated by the MCP pool",
+            remote, metrics, ConnectionPoolMetrics::allocatedSize);
+        registerGauge("mcp.pool.connections.pending", "MCP requests waiting for a connection",
+            remote, metrics, ConnectionPoolMetrics::pendingAcquireSize);
+        registerGauge("mcp.pool.connections.max", "Maximum connections allowed by the MCP pool",
+            remote, metrics, ConnectionPoolMetrics::maxAllocatedSize);
+    }
+
+    private void registerGauge(String name, String description, String remote, ConnectionPoolMetrics metrics,
+                               java.util.function.ToDoubleFunction<ConnectionPoolMetrics> value) {
+        Gauge.builder(name, metrics, value)
+            .description(description)
+            .tag("remote", remote)
+            .strongReference(true)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,95 @@
+package com.agentweave.mcp;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Absolute point in time by which an MCP call must complete
+ * A controller creates one from its request budget; every tool call started for that request
+ * is bounded by the time remaining, and a call whose deadline has already passed fails
+ * without being sent. The deadline reaches McpClient through the Reactor context, or through
+ * {@link #call(McpDeadline, Supplier)} for calls assembled inside agent graph nodes, which
+ * run outside the controller's reactive chain.
+ */
+public final class McpDeadline {
+
+    public static final String CONTEXT_KEY = McpDeadline.class.getName();
+
+    private static final ThreadLocal<McpDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private McpDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param budget Time allowed from now
+     */
+    public static McpDeadline after(Duration budget) {
+        return new McpDeadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @return The deadline of the calls being assembled on this thread, or null
+     */
+    public static McpDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run the action with the deadline as current, so MCP calls it assembles inherit it
+     * 
+     * @param deadline Deadline to apply, or null to run the action unchanged
+     * @param action Assembles MCP calls, e.g. starts an agent graph run
+     * @return The action's result
+     */
+    public static <T> T call(McpDeadline deadline, Supplier<T> action) {
+        if (deadline == null) {
+            return action.get();
+        }
+        McpDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * @return Time left, zero or negative once the deadline has passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Bound the call by the time remaining; fail it at once if none is left
+     */
+    public <T> Mono<T> apply(Mono<T> call, String toolName) {
+        return Mono.defer(() -> {
+            Duration remaining = remaining();
+            if (remaining.isNegative() || remaining.isZero()) {
+                return Mono.error(new TimeoutException("Deadline exceeded before calling MCP tool: " + toolName));
+            }
+            return call.timeout(remaining, Mono.error(() -> new TimeoutException(
+                "Deadline exceeded after " + remaining.toMillis() + "ms calling MCP tool: " + toolName)));
+        });
+    }
+
+    /**
+     * Store the deadline in a Reactor context, for {@code contextWrite}
+     */
+    public Context writeTo(Context context) {
+        return context.put(CONTEXT_KEY, this);
+    }
+}
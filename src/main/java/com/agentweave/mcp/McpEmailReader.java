@@ -0,0 +1,243 @@
+package com.agentweave.mcp;
+
+import com.agentweave.mail.Email;
+import com.agentweave.mail.EmailField;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streaming decoder for the readOutlookEmails tool result
+ * Walks the JSON array of emails token by token and builds Email records directly,
+ * without an intermediate JsonNode tree or Map per email. A projecting reader skips the
+ * values of fields it was not asked for, so their strings are never decoded; they are null
+ * in the emails it returns.
+ */
+public final class McpEmailReader implements ToolResultReader<List<Email>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpEmailReader.class);
+
+    public static final McpEmailReader INSTANCE = new McpEmailReader(EnumSet.allOf(EmailField.class));
+
+    private final Set<EmailField> fields;
+
+    private McpEmailReader(Set<EmailField> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param fields Fields to decode; null decodes every field
+     * @return Reader decoding only the given fields
+     */
+    public static McpEmailReader of(Set<EmailField> fields) {
+        if (fields == null || fields.size() == EmailField.values().length) {
+            return INSTANCE;
+        }
+        return new McpEmailReader(fields.isEmpty() ? EnumSet.noneOf(EmailField.class) : EnumSet.copyOf(fields));
+    }
+
+    /**
+     * @return Fields this reader decodes
+     */
+    public Set<EmailField> fields() {
+        return fields;
+    }
+
+    // Part of coalescing and cache keys: readers decoding the same fields are interchangeable
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof McpEmailReader reader && reader.fields.equals(fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    @Override
+    public List<Email> read(JsonFactory factory, char[] chars, int offset, int length) throws IOException {
+        try (JsonParser parser = factory.createParser(chars, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                // Return empty list if the content is not an email array
+                logger.warn("Could not parse emails from MCP response, returning empty list");
+                return new ArrayList<>();
+            }
+            List<Email> emails = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                emails.add(readEmail(parser, fields));
+            }
+            return emails;
+        }
+    }
+
+    @Override
+    public int weigh(List<Email> emails) {
+        int weight = 0;
+        for (Email email : emails) {
+            weight += length(email.id()) + length(email.subject()) + length(email.from())
+                + length(email.to()) + length(email.date()) + length(email.folderId())
+                + length(email.body());
+        }
+        return weight;
+    }
+
+    /**
+     * Emit the emails of a JSON array one at a time
+     * Each email is decoded only when requested, so no list of emails is built; the text itself
+     * stays in memory until the flux completes
+     * 
+     * @param factory JSON factory to create the parser from
+     * @param text JSON text whose top level is an array of emails
+     * @return Flux of emails
+     */
+    public Flux<Email> stream(JsonFactory factory, String text) {
+        return Flux.generate(
+            () -> {
+                JsonParser parser = factory.createParser(text);
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.close();
+                    throw new IllegalArgumentException("Expected a JSON array of emails");
+                }
+                return parser;
+            },
+            (parser, sink) -> {
+                try {
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        sink.next(readEmail(parser, fields));
+                    } else {
+                        sink.complete();
+                    }
+                } catch (IOException e) {
+                    sink.error(e);
+                }
+                return parser;
+            },
+            parser -> {
+                try {
+                    parser.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release
+                }
+            });
+    }
+
+    /**
+     * Read the given fields of one email object; the parser must be positioned on its START_OBJECT
+     */
+    static Email readEmail(JsonParser parser, Set<EmailField> fields) throws IOException {
+        String id = null;
+        String subject = null;
+        String from = null;
+        String to = null;
+        String date = null;
+        String folderId = null;
+        String body = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            EmailField selected = fieldOf(field);
+            if (selected == null || !fields.contains(selected)) {
+                // Skipped without decoding the value
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "id" -> id = readValue(parser);
+                case "subject" -> subject = readValue(parser);
+                case "from", "sender" -> from = readValue(parser);
+                case "to", "toRecipients" -> to = readValue(parser);
+                case "date", "receivedDateTime" -> date = readValue(parser);
+                case "folderId", "parentFolderId" -> folderId = readValue(parser);
+                case "body", "bodyPreview" -> {
+                    // Prefer the full body when the server sends both
+                    String value = readValue(parser);
+                    if (body == null || "body".equals(field)) {
+                        body = value;
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new Email(id, subject, from, to, date, folderId, body);
+    }
+
+    /**
+     * @return Email field a server-side field name maps to, or null for one that is not read
+     */
+    private static EmailField fieldOf(String field) {
+        return switch (field) {
+            case "id" -> EmailField.ID;
+            case "subject" -> EmailField.SUBJECT;
+            case "from", "sender" -> EmailField.FROM;
+            case "to", "toRecipients" -> EmailField.TO;
+            case "date", "receivedDateTime" -> EmailField.DATE;
+            case "folderId", "parentFolderId" -> EmailField.FOLDER_ID;
+            case "body", "bodyPreview" -> EmailField.BODY;
+            default -> null;
+        };
+    }
+
+    /**
+     * Read a scalar as text; structured values (e.g. Graph-style emailAddress or body
+     * objects) are reduced to their address or content, and arrays of them to a
+     * comma-separated list, all without building a tree
+     */
+    private static String readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        if (token == JsonToken.START_ARRAY) {
+            StringBuilder joined = null;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                String value = readValue(parser);
+                if (value == null) {
+                    continue;
+                }
+                joined = joined == null ? new StringBuilder(value) : joined.append(", ").append(value);
+            }
+            return joined != null ? joined.toString() : null;
+        }
+        return readObjectValue(parser);
+    }
+
+    /**
+     * Reduce an object to its emailAddress.address, address or content field
+     */
+    private static String readObjectValue(JsonParser parser) throws IOException {
+        String value = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "emailAddress" -> value = token == JsonToken.START_OBJECT ? readObjectValue(parser) : readValue(parser);
+                case "address", "content" -> {
+                    if (value == null) {
+                        value = readValue(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.agentweave.mcp;
+
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One MCP server replica: its client, its own session and the load and health state the
+ * router selects on
+ * Sessions never move between endpoints, since a session id is only known to the replica
+ * that issued it.
+ */
+final class McpEndpoint {
+
+    // Floor on the latency used for cost, so endpoints without recent samples are not free
+    private static final double MIN_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String url;
+    private final WebClient webClient;
+    private final McpSessionManager sessionManager;
+    private final long decayNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Updates take the lock; the routing decision on every call reads the volatile fields without it
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile double latencyNanos;
+    private volatile long sampledAt = System.nanoTime();
+    private int consecutiveFailures;
+    private int ejections;
+    private volatile long ejectedUntil = System.nanoTime();
+    private volatile boolean healthy = true;
+    private int probeStreak;
+
+    McpEndpoint(String url, WebClient webClient, McpSessionManager sessionManager, long decayNanos) {
+        this.url = url;
+        this.webClient = webClient;
+        this.sessionManager = sessionManager;
+        this.decayNanos = decayNanos;
+    }
+
+    String url() {
+        return url;
+    }
+
+    WebClient webClient() {
+        return webClient;
+    }
+
+    McpSessionManager sessionManager() {
+        return sessionManager;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Whether calls may be routed here: the last pings succeeded and it is not ejected
+     */
+    boolean isAvailable(long now) {
+        return healthy && now - ejectedUntil >= 0;
+    }
+
+    boolean isEjected(long now) {
+        return now - ejectedUntil < 0;
+    }
+
+    /**
+     * Peak-EWMA latency, decayed towards zero for the time since the last sample
+     * An endpoint that has been avoided for a while becomes attractive again, so it is re-measured
+     */
+    double latencyNanos(long now) {
+        long elapsed = Math.max(now - sampledAt, 0);
+        return latencyNanos * Math.exp(-elapsed / (double) decayNanos);
+    }
+
+    /**
+     * Expected wait for a new call: latency scaled by the calls already queued in front of it
+     */
+    double cost(long now) {
+        return Math.max(latencyNanos(now), MIN_LATENCY_NANOS) * (inFlight.get() + 1);
+    }
+
+    void start() {
+        inFlight.incrementAndGet();
+    }
+
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Record a completed call
+     *
+     * @param elapsedNanos Time the call took
+     * @param failed Whether it failed with a server failure
+     * @return Consecutive server failures including this call
+     */
+    int complete(long now, long elapsedNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        lock.lock();
+        try {
+            // A failing replica often fails fast; it must not look faster for it
+            double sample = failed ? Math.max(elapsedNanos, 2 * latencyNanos) : elapsedNanos;
+            double weight = Math.exp(-(now - sampledAt) / (double) decayNanos);
+            // Jump straight to a slower sample, forget a faster one gradually
+            latencyNanos = sample > latencyNanos ? sample : latencyNanos * weight + sample * (1 - weight);
+            sampledAt = now;
+            consecutiveFailures = failed ? consecutiveFailures + 1 : 0;
+            return consecutiveFailures;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the endpoint out of rotation for baseNanos times the number of ejections so far
+     */
+    void eject(long now, long baseNanos, long maxNanos) {
+        lock.lock();
+        try {
+            ejections++;
+            consecutiveFailures = 0;
+            ejectedUntil = now + Math.min(baseNanos * ejections, maxNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record the outcome of an active health check
+     *
+     * @return Whether the endpoint changed between healthy and unhealthy
+     */
+    boolean probed(boolean ok, int unhealthyThreshold, int healthyThreshold) {
+        lock.lock();
+        try {
+            // Positive streak counts successes, negative streak counts failures
+            probeStreak = ok ? Math.max(probeStreak, 0) + 1 : Math.min(probeStreak, 0) - 1;
+            if (healthy && -probeStreak >= unhealthyThreshold) {
+                healthy = false;
+                return true;
+            }
+            if (!healthy && probeStreak >= healthyThreshold) {
+                healthy = true;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+}
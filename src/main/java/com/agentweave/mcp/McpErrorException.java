@@ -0,0 +1,21 @@
+package com.agentweave.mcp;
+
+/**
+ * JSON-RPC error returned by the MCP server, carrying the error code
+ */
+public class McpErrorException extends RuntimeException {
+
+    private final int code;
+
+    public McpErrorException(int code, String message) {
+        super("MCP server error: " + message);
+        this.code = code;
+    }
+
+    /**
+     * @return JSON-RPC error code, e.g. -32602 for invalid params
+     */
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,40 @@
+package com.agentweave.mcp;
+
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Classification of failed MCP calls for the circuit breaker and concurrency limiter
+ */
+final class McpFailures {
+
+    private McpFailures() {
+    }
+
+    /**
+     * Whether the failure indicates an unhealthy or overloaded server: a timeout, a transport
+     * error, HTTP 5xx or 429. JSON-RPC errors are answers from a working server and do not count.
+     */
+    static boolean isServerFailure(Throwable error) {
+        // McpClient wraps the original failure, so look through the cause chain
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof McpErrorException || e instanceof McpRejectedException) {
+                return false;
+            }
+            if (e instanceof TimeoutException || e instanceof WebClientRequestException || e instanceof IOException) {
+                return true;
+            }
+            if (e instanceof WebClientResponseException responseException) {
+                int status = responseException.getStatusCode().value();
+                return status >= 500 || status == 429;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+}
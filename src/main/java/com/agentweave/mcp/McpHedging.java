@@ -0,0 +1,159 @@
+package com.agentweave.mcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent MCP tools
+ * If a call has not answered after the tool's recent p95 latency (mcp.hedge.quantile), a
+ * second identical call is sent and whichever answers first wins; the other is cancelled.
+ * Once the hedge is sent, an error from either call waits for the other, and the call fails
+ * only if both do. Before that, an error from the first call fails it at once.
+ * Hedges are paid for from a budget that earns mcp.hedge.max-ratio of a hedge per call, so
+ * a degraded server sees at most that much extra load.
+ */
+@Component
+public class McpHedging {
+
+    private static final int WINDOW_SIZE = 512;
+    private static final int MIN_SAMPLES = 50;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final double MAX_BUDGET = 10;
+
+    /**
+     * Recent successful latencies of one tool and the hedge delay derived from them
+     */
+    private final class LatencyWindow {
+
+        private final long[] samples = new long[WINDOW_SIZE];
+        private final AtomicLong count = new AtomicLong();
+        private volatile long delayNanos = -1;
+
+        void record(long nanos) {
+            long n = count.getAndIncrement();
+            samples[(int) (n % WINDOW_SIZE)] = nanos;
+            if (n + 1 >= MIN_SAMPLES && (n + 1) % RECOMPUTE_EVERY == 0) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(n + 1, WINDOW_SIZE));
+                Arrays.sort(sorted);
+                long quantileNanos = sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+                delayNanos = Math.max(minDelayNanos, quantileNanos);
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final List<String> tools;
+    private final double quantile;
+    private final long minDelayNanos;
+    private final double maxRatio;
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private final ReentrantLock budgetLock = new ReentrantLock();
+    private double budget = MAX_BUDGET;
+    private final Counter hedges;
+
+    public McpHedging(MeterRegistry meterRegistry,
+                      @Value("${mcp.hedge.enabled:false}") boolean enabled,
+                      @Value("${mcp.hedge.tools:hello,readOutlookEmails}") List<String> tools,
+                      @Value("${mcp.hedge.quantile:0.95}") double quantile,
+                      @Value("${mcp.hedge.min-delay:10ms}") Duration minDelay,
+                      @Value("${mcp.hedge.max-ratio:0.1}") double maxRatio) {
+        this.enabled = enabled;
+        this.tools = tools;
+        this.quantile = quantile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxRatio = maxRatio;
+        this.hedges = Counter.builder("mcp.hedge.sent")
+            .description("Hedged MCP calls sent because the first call was slower than the tool's p95")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the call, hedging it for tools listed in mcp.hedge.tools
+     * Only idempotent tools may be listed, since both calls can reach the server
+     *
+     * @param toolName Name of the tool
+     * @param call Starts one attempt; invoked once, or twice when hedging
+     * @return Mono of the first attempt to answer
+     */
+    public <T> Mono<T> execute(String toolName, Supplier<Mono<T>> call) {
+        if (!enabled || !tools.contains(toolName)) {
+            return Mono.defer(call);
+        }
+        LatencyWindow window = windows.computeIfAbsent(toolName, tool -> new LatencyWindow());
+        return Mono.defer(() -> {
+            earn();
+            long delayNanos = window.delayNanos;
+            if (delayNanos < 0) {
+                // Not enough samples yet to know what slow means for this tool
+                return timed(call, window);
+            }
+            AtomicBoolean hedgeSent = new AtomicBoolean();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            // Fails the hedge side when the primary fails before a hedge was sent
+            Sinks.Empty<T> failedEarly = Sinks.empty();
+            Mono<T> primary = timed(call, window)
+                .doOnError(e -> {
+                    primaryError.set(e);
+                    if (!hedgeSent.get()) {
+                        failedEarly.tryEmitError(e);
+                    }
+                });
+            Mono<T> hedge = Mono.firstWithSignal(failedEarly.asMono(), Mono.delay(Duration.ofNanos(delayNanos))
+                .flatMap(tick -> {
+                    if (!spend()) {
+                        return Mono.never();
+                    }
+                    hedgeSent.set(true);
+                    hedges.increment();
+                    return timed(call, window);
+                }));
+            // The first value wins; with both attempts failed, the primary's error is the one reported
+            return Mono.firstWithValue(primary, hedge)
+                .onErrorMap(e -> primaryError.get() != null ? primaryError.get() : e);
+        });
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> call, LatencyWindow window) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get().doOnSuccess(result -> window.record(System.nanoTime() - start));
+        });
+    }
+
+    private void earn() {
+        budgetLock.lock();
+        try {
+            budget = Math.min(MAX_BUDGET, budget + maxRatio);
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    private boolean spend() {
+        budgetLock.lock();
+        try {
+            if (budget < 1) {
+                return false;
+            }
+            budget--;
+            return true;
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+}
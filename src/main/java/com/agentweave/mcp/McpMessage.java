@@ -0,0 +1,12 @@
+package com.agentweave.mcp;
+
+/**
+ * A decoded JSON-RPC message received from the MCP server
+ * Either a response (carrying a typed result or an error) or a progress notification
+ */
+public record McpMessage<T>(String id, T result, RuntimeException error, McpProgress progress) {
+
+    public boolean isResponse() {
+        return progress == null && (result != null || error != null);
+    }
+}
@@ -0,0 +1,8 @@
+package com.agentweave.mcp;
+
+/**
+ * Progress notification received while a tool call is in flight
+ * The progress token matches the one sent in the request's _meta
+ */
+public record McpProgress(String progressToken, double progress, Double total, String message) {
+}
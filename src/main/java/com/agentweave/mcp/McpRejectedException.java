@@ -0,0 +1,13 @@
+package com.agentweave.mcp;
+
+/**
+ * MCP call refused locally, without contacting the server
+ * Raised while the circuit breaker is open or the concurrency limit is reached, so callers
+ * fail fast instead of queueing behind a degraded server.
+ */
+public class McpRejectedException extends RuntimeException {
+
+    public McpRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,99 @@
+package com.agentweave.mcp;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes tools/call requests straight to bytes from a pre-encoded template
+ * Field names and constant values are encoded once; per request only the id, tool name
+ * and arguments are written, with no intermediate request maps.
+ */
+class McpRequestWriter {
+
+    private static final SerializedString JSONRPC = new SerializedString("jsonrpc");
+    private static final SerializedString VERSION = new SerializedString("2.0");
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString METHOD = new SerializedString("method");
+    private static final SerializedString TOOLS_CALL = new SerializedString("tools/call");
+    private static final SerializedString PARAMS = new SerializedString("params");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString ARGUMENTS = new SerializedString("arguments");
+    private static final SerializedString META = new SerializedString("_meta");
+    private static final SerializedString PROGRESS_TOKEN = new SerializedString("progressToken");
+
+    private final ObjectMapper objectMapper;
+
+    McpRequestWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Serialize a single tools/call request
+     * The request id doubles as the progressToken in _meta for sync HTTP streamable MCP
+     */
+    byte[] writeToolCall(long id, String toolName, Map<String, Object> arguments) {
+        try (ByteArrayBuilder buffer = new ByteArrayBuilder(256);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            writeToolCall(generator, id, toolName, arguments);
+            generator.flush();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Error serializing MCP request", e);
+        }
+    }
+
+    /**
+     * Serialize a JSON-RPC batch of tools/call requests
+     */
+    byte[] writeToolCalls(List<Long> ids, List<ToolCall> calls) {
+        try (ByteArrayBuilder buffer = new ByteArrayBuilder(256 * calls.size());
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            generator.writeStartArray();
+            for (int i = 0; i < calls.size(); i++) {
+                writeToolCall(generator, ids.get(i), calls.get(i).name(), calls.get(i).arguments());
+            }
+            generator.writeEndArray();
+            generator.flush();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Error serializing MCP batch request", e);
+        }
+    }
+
+    private void writeToolCall(JsonGenerator generator, long id, String toolName,
+                               Map<String, Object> arguments) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(JSONRPC);
+        generator.writeString(VERSION);
+        generator.writeFieldName(ID);
+        generator.writeNumber(id);
+        generator.writeFieldName(METHOD);
+        generator.writeString(TOOLS_CALL);
+
+        generator.writeFieldName(PARAMS);
+        generator.writeStartObject();
+        generator.writeFieldName(NAME);
+        generator.writeString(toolName);
+        generator.writeFieldName(ARGUMENTS);
+        if (arguments == null || arguments.isEmpty()) {
+            generator.writeStartObject();
+            generator.writeEndObject();
+        } else {
+            generator.writeObject(arguments);
+        }
+        generator.writeFieldName(META);
+        generator.writeStartObject();
+        generator.writeFieldName(PROGRESS_TOKEN);
+        generator.writeNumber(id);
+        generator.writeEndObject();
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+    }
+}
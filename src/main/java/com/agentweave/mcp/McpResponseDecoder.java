@@ -0,0 +1,228 @@
+package com.agentweave.mcp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder for MCP streamable HTTP responses
+ * Handles both plain application/json bodies and text/event-stream bodies. With SSE every
+ * event is decoded as soon as it arrives, so progress notifications are seen while the
+ * call is still running and the final result is emitted without buffering the stream.
+ * 
+ * Messages are read in a single pass with a streaming parser: result.content[0].text is
+ * handed to a {@link ToolResultReader} straight from the parser's buffer, without building
+ * a JsonNode tree or an intermediate String.
+ */
+public class McpResponseDecoder {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+        new ParameterizedTypeReference<>() {};
+
+    private final JsonFactory jsonFactory;
+    private final McpAllocationMeter allocationMeter;
+
+    public McpResponseDecoder(ObjectMapper objectMapper, McpAllocationMeter allocationMeter) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.allocationMeter = allocationMeter;
+    }
+
+    /**
+     * Decode the JSON-RPC messages carried by a response as they arrive
+     * A JSON array body (batch response) is emitted one element at a time
+     * 
+     * @param response Successful response from the MCP server
+     * @param reader Decoder for tool result text content
+     * @param tool Tool name, used to tag allocation measurements
+     * @return Flux of JSON-RPC messages (responses and notifications)
+     */
+    public <T> Flux<McpMessage<T>> decode(ClientResponse response, ToolResultReader<T> reader, String tool) {
+        boolean eventStream = response.headers().contentType()
+            .map(MediaType.TEXT_EVENT_STREAM::isCompatibleWith)
+            .orElse(false);
+        if (eventStream) {
+            return response.bodyToFlux(SSE_TYPE)
+                .filter(event -> event.data() != null && !event.data().isBlank())
+                .map(event -> {
+                    long mark = allocationMeter.start();
+                    try (JsonParser parser = jsonFactory.createParser(event.data())) {
+                        parser.nextToken();
+                        return readMessage(parser, reader);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error parsing MCP response: " + e.getMessage(), e);
+                    } finally {
+                        allocationMeter.record(mark, tool, "decode");
+                    }
+                });
+        }
+        return response.bodyToMono(DataBuffer.class)
+            .flatMapIterable(buffer -> {
+                long mark = allocationMeter.start();
+                try (InputStream body = buffer.asInputStream(true);
+                     JsonParser parser = jsonFactory.createParser(body)) {
+                    return readMessages(parser, reader);
+                } catch (IOException e) {
+                    throw new RuntimeException("Error parsing MCP response: " + e.getMessage(), e);
+                } finally {
+                    allocationMeter.record(mark, tool, "decode");
+                }
+            });
+    }
+
+    private <T> List<McpMessage<T>> readMessages(JsonParser parser, ToolResultReader<T> reader) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            List<McpMessage<T>> messages = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                messages.add(readMessage(parser, reader));
+            }
+            return messages;
+        }
+        if (token == null) {
+            return List.of();
+        }
+        return List.of(readMessage(parser, reader));
+    }
+
+    /**
+     * Read one JSON-RPC message; the parser must be positioned on its START_OBJECT
+     */
+    private <T> McpMessage<T> readMessage(JsonParser parser, ToolResultReader<T> reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON-RPC message object");
+        }
+        String id = null;
+        String method = null;
+        JsonNode params = null;
+        JsonNode error = null;
+        T result = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getValueAsString();
+                case "method" -> method = parser.getValueAsString();
+                // Notification params and errors are small; a tree is fine for them
+                case "params" -> params = parser.readValueAsTree();
+                case "error" -> error = parser.readValueAsTree();
+                case "result" -> result = readResult(parser, reader);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if ("notifications/progress".equals(method) && params != null) {
+            return new McpMessage<>(id, null, null, toProgress(params));
+        }
+        if (error != null) {
+            String errorMessage = error.has("message")
+                ? error.get("message").asText()
+                : error.toString();
+            return new McpMessage<>(id, null, new McpErrorException(error.path("code").asInt(), errorMessage), null);
+        }
+        return new McpMessage<>(id, result, null, null);
+    }
+
+    /**
+     * Read the result value; the parser must be positioned on its first token
+     * Spring AI MCP returns content in result.content array
+     */
+    private <T> T readResult(JsonParser parser, ToolResultReader<T> reader) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return readText(parser, reader);
+        }
+        if (token != JsonToken.START_OBJECT) {
+            // Fallback: return result as JSON string
+            JsonNode result = parser.readValueAsTree();
+            return reader.read(jsonFactory, result.toString());
+        }
+
+        T value = null;
+        // Until a text part is found, what is read is kept: without one, the raw result is returned
+        ObjectNode raw = JsonNodeFactory.instance.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("content".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                value = readFirstContent(parser, reader, raw.putArray(field));
+            } else if (value == null) {
+                raw.set(field, parser.readValueAsTree());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (value == null) {
+            // Non-text content (resources, images) or structuredContent only
+            return reader.read(jsonFactory, raw.toString());
+        }
+        return value;
+    }
+
+    /**
+     * Read the text of the first content item, keeping the items in {@code items} while it has none
+     */
+    private <T> T readFirstContent(JsonParser parser, ToolResultReader<T> reader, ArrayNode items)
+            throws IOException {
+        T value = null;
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_STRING) {
+            // If content is a string directly
+            value = readText(parser, reader);
+        } else if (token == JsonToken.START_OBJECT) {
+            ObjectNode item = items.addObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("text".equals(field)) {
+                    value = readText(parser, reader);
+                } else if (value == null) {
+                    item.set(field, parser.readValueAsTree());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (token != JsonToken.END_ARRAY) {
+            items.add((JsonNode) parser.readValueAsTree());
+        }
+        // Skip any further content items, unless the result turns out to have no text
+        if (token != JsonToken.END_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (value == null) {
+                    items.add((JsonNode) parser.readValueAsTree());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return value;
+    }
+
+    private <T> T readText(JsonParser parser, ToolResultReader<T> reader) throws IOException {
+        return reader.read(jsonFactory, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private static McpProgress toProgress(JsonNode params) {
+        return new McpProgress(
+            params.path("progressToken").asText(),
+            params.path("progress").asDouble(),
+            params.has("total") ? params.get("total").asDouble() : null,
+            params.has("message") ? params.get("message").asText() : null);
+    }
+}
@@ -0,0 +1,200 @@
+package com.agentweave.mcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Routes MCP calls across server replicas
+ * Each call goes to the cheaper of two randomly chosen endpoints, where cost is the peak-EWMA
+ * latency times the calls in flight (power of two choices), so slow or busy replicas get less
+ * traffic without every client herding onto the same one. Endpoints leave rotation when their
+ * pings fail (active checks) or after consecutive server failures on real calls (outlier
+ * ejection). If no endpoint is left, all of them are used rather than failing every call.
+ */
+final class McpRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpRouter.class);
+
+    private final List<McpEndpoint> endpoints;
+    private final McpRoutingProperties properties;
+    private final Map<McpEndpoint, Counter> ejectionCounters = new HashMap<>();
+    private final AtomicInteger nextEndpoint = new AtomicInteger();
+    private final ReentrantLock ejectionLock = new ReentrantLock();
+    private final Disposable healthChecks;
+
+    McpRouter(List<McpEndpoint> endpoints, McpRoutingProperties properties, MeterRegistry meterRegistry) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one MCP server URL is required");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.properties = properties;
+        if (this.endpoints.size() > 1) {
+            for (McpEndpoint endpoint : this.endpoints) {
+                registerMetrics(endpoint, meterRegistry);
+            }
+        }
+        this.healthChecks = this.endpoints.size() > 1 && properties.getHealthCheck().isEnabled()
+            ? startHealthChecks()
+            : null;
+    }
+
+    /**
+     * Run a call against the endpoint chosen for it
+     * With a single endpoint the call is made directly, without any bookkeeping
+     *
+     * @param call Request to send, given the endpoint (and so the session) it goes to
+     * @return Mono of the call
+     */
+    <T> Mono<T> execute(Function<McpEndpoint, Mono<T>> call) {
+        if (endpoints.size() == 1) {
+            return Mono.defer(() -> call.apply(endpoints.get(0)));
+        }
+        return Mono.defer(() -> {
+            McpEndpoint endpoint = select(System.nanoTime());
+            endpoint.start();
+            long start = System.nanoTime();
+            return call.apply(endpoint)
+                .doOnSuccess(result -> endpoint.complete(System.nanoTime(), System.nanoTime() - start, false))
+                .doOnError(e -> onError(endpoint, start, e))
+                .doOnCancel(endpoint::cancel);
+        });
+    }
+
+    /**
+     * Terminate the session on every endpoint and stop health checks
+     */
+    void close() {
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+        for (McpEndpoint endpoint : endpoints) {
+            endpoint.sessionManager().close();
+        }
+    }
+
+    private McpEndpoint select(long now) {
+        List<McpEndpoint> candidates = new ArrayList<>(endpoints.size());
+        for (McpEndpoint endpoint : endpoints) {
+            if (endpoint.isAvailable(now)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Nothing is known to be healthy; spreading load beats failing every call
+            candidates = endpoints;
+        }
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        if (properties.getStrategy() == McpRoutingProperties.Strategy.ROUND_ROBIN) {
+            return candidates.get(Math.floorMod(nextEndpoint.getAndIncrement(), size));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        McpEndpoint a = candidates.get(first);
+        McpEndpoint b = candidates.get(second);
+        return a.cost(now) <= b.cost(now) ? a : b;
+    }
+
+    private void onError(McpEndpoint endpoint, long start, Throwable error) {
+        long now = System.nanoTime();
+        boolean failed = McpFailures.isServerFailure(error);
+        int consecutiveFailures = endpoint.complete(now, now - start, failed);
+        if (failed && consecutiveFailures >= properties.getEjection().getConsecutiveFailures()) {
+            eject(endpoint, now);
+        }
+    }
+
+    private void eject(McpEndpoint endpoint, long now) {
+        ejectionLock.lock();
+        try {
+            if (endpoint.isEjected(now)) {
+                return;
+            }
+            int ejected = 0;
+            for (McpEndpoint other : endpoints) {
+                if (other.isEjected(now)) {
+                    ejected++;
+                }
+            }
+            // Keep at least one endpoint, and never eject more than max-percent of them
+            if (ejected + 1 >= endpoints.size()
+                    || (ejected + 1) * 100 > properties.getEjection().getMaxPercent() * endpoints.size()) {
+                return;
+            }
+            endpoint.eject(now, properties.getEjection().getBaseTime().toNanos(),
+                properties.getEjection().getMaxTime().toNanos());
+        } finally {
+            ejectionLock.unlock();
+        }
+        ejectionCounters.get(endpoint).increment();
+        logger.warn("MCP endpoint {} ejected after {} consecutive failures", endpoint.url(),
+            properties.getEjection().getConsecutiveFailures());
+    }
+
+    private Disposable startHealthChecks() {
+        McpRoutingProperties.HealthCheck healthCheck = properties.getHealthCheck();
+        return Flux.interval(healthCheck.getInterval(), healthCheck.getInterval())
+            .onBackpressureDrop()
+            // One round at a time; a round ends once every endpoint has answered or timed out
+            .concatMap(tick -> Flux.fromIterable(endpoints)
+                .flatMap(endpoint -> endpoint.sessionManager().ping()
+                    .timeout(healthCheck.getTimeout())
+                    .thenReturn(true)
+                    .onErrorReturn(false)
+                    .doOnNext(ok -> probed(endpoint, ok)))
+                .then(), 0)
+            .subscribe();
+    }
+
+    private void probed(McpEndpoint endpoint, boolean ok) {
+        McpRoutingProperties.HealthCheck healthCheck = properties.getHealthCheck();
+        if (endpoint.probed(ok, healthCheck.getUnhealthyThreshold(), healthCheck.getHealthyThreshold())) {
+            if (endpoint.isHealthy()) {
+                logger.info("MCP endpoint {} is healthy again", endpoint.url());
+            } else {
+                logger.warn("MCP endpoint {} failed {} health checks, taking it out of rotation",
+                    endpoint.url(), healthCheck.getUnhealthyThreshold());
+            }
+        }
+    }
+
+    private void registerMetrics(McpEndpoint endpoint, MeterRegistry meterRegistry) {
+        Gauge.builder("mcp.endpoint.in-flight", endpoint, McpEndpoint::inFlight)
+            .description("MCP calls in flight to the endpoint")
+            .tag("endpoint", endpoint.url())
+            .register(meterRegistry);
+        Gauge.builder("mcp.endpoint.latency", endpoint, e -> e.latencyNanos(System.nanoTime()) / 1_000_000)
+            .description("Peak-EWMA latency of the endpoint in milliseconds, as used for routing")
+            .tag("endpoint", endpoint.url())
+            .register(meterRegistry);
+        Gauge.builder("mcp.endpoint.available", endpoint, e -> e.isAvailable(System.nanoTime()) ? 1 : 0)
+            .description("Whether the endpoint is in rotation: 1 healthy and not ejected, 0 otherwise")
+            .tag("endpoint", endpoint.url())
+            .register(meterRegistry);
+        ejectionCounters.put(endpoint, Counter.builder("mcp.endpoint.ejections")
+            .description("Times the endpoint was ejected after consecutive server failures")
+            .tag("endpoint", endpoint.url())
+            .register(meterRegistry));
+    }
+}
@@ -0,0 +1,169 @@
+package com.agentweave.mcp;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of routing across MCP server replicas (mcp.routing.*)
+ * Only used when mcp.server.url lists more than one endpoint
+ */
+@Component
+@ConfigurationProperties(prefix = "mcp.routing")
+public class McpRoutingProperties {
+
+    public enum Strategy {
+        /** Power of two choices: the cheaper of two random endpoints by EWMA latency x calls in flight */
+        P2C,
+        ROUND_ROBIN
+    }
+
+    private Strategy strategy = Strategy.P2C;
+
+    /** Time over which an endpoint's latency average forgets old samples */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    private HealthCheck healthCheck = new HealthCheck();
+
+    private Ejection ejection = new Ejection();
+
+    /**
+     * Active health checking: a JSON-RPC ping sent to every endpoint within its own session
+     */
+    public static class HealthCheck {
+
+        private boolean enabled = true;
+
+        private Duration interval = Duration.ofSeconds(10);
+
+        private Duration timeout = Duration.ofSeconds(2);
+
+        /** Consecutive failed pings after which an endpoint is taken out of rotation */
+        private int unhealthyThreshold = 2;
+
+        /** Consecutive successful pings after which an unhealthy endpoint is put back */
+        private int healthyThreshold = 1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getUnhealthyThreshold() {
+            return unhealthyThreshold;
+        }
+
+        public void setUnhealthyThreshold(int unhealthyThreshold) {
+            this.unhealthyThreshold = unhealthyThreshold;
+        }
+
+        public int getHealthyThreshold() {
+            return healthyThreshold;
+        }
+
+        public void setHealthyThreshold(int healthyThreshold) {
+            this.healthyThreshold = healthyThreshold;
+        }
+    }
+
+    /**
+     * Passive health checking: outlier ejection driven by the outcome of real calls
+     */
+    public static class Ejection {
+
+        /** Consecutive server failures (timeouts, transport errors, 5xx/429) that eject an endpoint */
+        private int consecutiveFailures = 5;
+
+        /** Ejection time; multiplied by the number of times the endpoint has been ejected */
+        private Duration baseTime = Duration.ofSeconds(30);
+
+        private Duration maxTime = Duration.ofMinutes(5);
+
+        /** Upper bound on the share of endpoints ejected at the same time */
+        private int maxPercent = 50;
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+
+        public Duration getBaseTime() {
+            return baseTime;
+        }
+
+        public void setBaseTime(Duration baseTime) {
+            this.baseTime = baseTime;
+        }
+
+        public Duration getMaxTime() {
+            return maxTime;
+        }
+
+        public void setMaxTime(Duration maxTime) {
+            this.maxTime = maxTime;
+        }
+
+        public int getMaxPercent() {
+            return maxPercent;
+        }
+
+        public void setMaxPercent(int maxPercent) {
+            this.maxPercent = maxPercent;
+        }
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(Duration decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    public HealthCheck getHealthCheck() {
+        return healthCheck;
+    }
+
+    public void setHealthCheck(HealthCheck healthCheck) {
+        this.healthCheck = healthCheck;
+    }
+
+    public Ejection getEjection() {
+        return ejection;
+    }
+
+    public void setEjection(Ejection ejection) {
+        this.ejection = ejection;
+    }
+}
@@ -0,0 +1,220 @@
+package com.agentweave.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * MCP session manager for the streamable HTTP transport
+ * Runs the initialize handshake once, caches the resulting Mcp-Session-Id and shares it
+ * across all tool calls. When the server reports the session as expired (HTTP 404 on a
+ * request carrying a session id) the session is re-initialized and the call retried once.
+ */
+public class McpSessionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpSessionManager.class);
+
+    public static final String SESSION_HEADER = "Mcp-Session-Id";
+    public static final String PROTOCOL_VERSION_HEADER = "MCP-Protocol-Version";
+
+    /**
+     * Session established by the initialize handshake
+     * The id is null when the server runs stateless and does not issue session ids
+     */
+    public record Session(String id, String protocolVersion) {
+
+        public boolean hasId() {
+            return id != null;
+        }
+    }
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final String protocolVersion;
+    private final AtomicReference<Mono<Session>> current = new AtomicReference<>();
+    private final AtomicLong requestIds = new AtomicLong();
+
+    public McpSessionManager(WebClient webClient, ObjectMapper objectMapper, String protocolVersion) {
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Run a call within the current MCP session, initializing it on first use
+     * 
+     * @param call Request to run, given the session to attach to it
+     * @return Result of the call, retried once on a fresh session if the old one expired
+     */
+    public <T> Mono<T> withSession(Function<Session, Mono<T>> call) {
+        return Mono.defer(() -> {
+            // The expiry CAS must match the instance held in current, not the wrapper adding the error reset
+            Mono<Session> cached = cachedSession();
+            return session(cached).flatMap(session -> call.apply(session)
+                .onErrorResume(e -> session.hasId() && isSessionExpired(e), e -> {
+                    logger.info("MCP session {} expired, re-initializing", session.id());
+                    current.compareAndSet(cached, null);
+                    return session(cachedSession()).flatMap(call);
+                }));
+        });
+    }
+
+    /**
+     * Add session and protocol headers to an outgoing request
+     */
+    public static WebClient.RequestBodySpec applyHeaders(WebClient.RequestBodySpec request, Session session) {
+        if (session.hasId()) {
+            request = request.header(SESSION_HEADER, session.id());
+        }
+        return request.header(PROTOCOL_VERSION_HEADER, session.protocolVersion());
+    }
+
+    /**
+     * Send a JSON-RPC ping within the session, initializing it if needed
+     * Used as an active health check; any 2xx answer counts as alive
+     */
+    public Mono<Void> ping() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("jsonrpc", "2.0");
+        request.put("id", "ping-" + requestIds.incrementAndGet());
+        request.put("method", "ping");
+
+        return withSession(session -> applyHeaders(webClient.post().uri(""), session)
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json, text/event-stream")
+            .bodyValue(request)
+            .retrieve()
+            .toBodilessEntity())
+            .then();
+    }
+
+    /**
+     * Terminate the current session on the server, if any
+     */
+    public void close() {
+        Mono<Session> sessionMono = current.getAndSet(null);
+        if (sessionMono == null) {
+            return;
+        }
+        try {
+            Session session = sessionMono.block(Duration.ofSeconds(2));
+            if (session != null && session.hasId()) {
+                webClient.delete()
+                    .uri("")
+                    .header(SESSION_HEADER, session.id())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(Duration.ofSeconds(2));
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to terminate MCP session: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return The cached session Mono held in current, created if there is none
+     */
+    private Mono<Session> cachedSession() {
+        Mono<Session> existing = current.get();
+        if (existing == null) {
+            Mono<Session> created = initialize().cache();
+            existing = current.compareAndExchange(null, created);
+            if (existing == null) {
+                existing = created;
+            }
+        }
+        return existing;
+    }
+
+    private Mono<Session> session(Mono<Session> cached) {
+        // A failed handshake must not be cached; the next call retries it
+        return cached.doOnError(e -> current.compareAndSet(cached, null));
+    }
+
+    private Mono<Session> initialize() {
+        Map<String, Object> clientInfo = new HashMap<>();
+        clientInfo.put("name", "agent-weave");
+        clientInfo.put("version", "1.0.0");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("protocolVersion", protocolVersion);
+        params.put("capabilities", Map.of());
+        params.put("clientInfo", clientInfo);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("jsonrpc", "2.0");
+        request.put("id", "init-" + requestIds.incrementAndGet());
+        request.put("method", "initialize");
+        request.put("params", params);
+
+        return webClient.post()
+            .uri("")
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json, text/event-stream")
+            .bodyValue(request)
+            .exchangeToMono(response -> {
+                if (response.statusCode().isError()) {
+                    return response.createError();
+                }
+                String sessionId = response.headers().asHttpHeaders().getFirst(SESSION_HEADER);
+                boolean json = response.headers().contentType()
+                    .map(MediaType.APPLICATION_JSON::isCompatibleWith)
+                    .orElse(false);
+                return response.bodyToMono(String.class)
+                    .defaultIfEmpty("")
+                    .map(body -> new Session(sessionId, json ? negotiatedVersion(body) : protocolVersion));
+            })
+            .flatMap(this::sendInitialized)
+            .doOnNext(session -> logger.info("MCP session initialized (id={}, protocol={})",
+                session.id(), session.protocolVersion()));
+    }
+
+    private String negotiatedVersion(String body) {
+        try {
+            JsonNode jsonResponse = objectMapper.readTree(body);
+            if (jsonResponse.has("error")) {
+                JsonNode error = jsonResponse.get("error");
+                String errorMessage = error.has("message")
+                    ? error.get("message").asText()
+                    : error.toString();
+                throw new RuntimeException("MCP initialize failed: " + errorMessage);
+            }
+            JsonNode version = jsonResponse.path("result").path("protocolVersion");
+            return version.isTextual() ? version.asText() : protocolVersion;
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new RuntimeException("Error parsing MCP initialize response: " + e.getMessage(), e);
+        }
+    }
+
+    private Mono<Session> sendInitialized(Session session) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "notifications/initialized");
+
+        return applyHeaders(webClient.post().uri(""), session)
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json, text/event-stream")
+            .bodyValue(notification)
+            .retrieve()
+            .toBodilessEntity()
+            .thenReturn(session);
+    }
+
+    private static boolean isSessionExpired(Throwable e) {
+        return e instanceof WebClientResponseException responseException
+            && responseException.getStatusCode().value() == HttpStatus.NOT_FOUND.value();
+    }
+}
@@ -0,0 +1,92 @@
+package com.agentweave.mcp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical in-flight MCP tool calls
+ * Concurrent calls with the same tool name and arguments share one upstream call and all
+ * receive its result or error. Once the call completes the next caller starts a fresh one,
+ * so no result is ever served after it has been delivered. A waiter that times out or cancels
+ * leaves the shared call running for the others.
+ */
+@Component
+public class McpSingleFlight {
+
+    private final class Flight {
+
+        private final AtomicInteger waiters = new AtomicInteger();
+        private final Mono<?> result;
+
+        Flight(ToolCallKey key, Supplier<? extends Mono<?>> call) {
+            // The shared call runs without the first caller's deadline, bounded only by mcp.coalesce.timeout.
+            // Each waiter's deadline is applied by McpClient to its own subscription, and cache() does not
+            // cancel the shared call when a waiter gives up, so a short deadline fails only its own caller
+            this.result = call.get()
+                .timeout(timeout)
+                .contextWrite(context -> context.delete(McpDeadline.CONTEXT_KEY))
+                .doFinally(signal -> flights.remove(key, this))
+                .cache();
+        }
+    }
+
+    private final Map<ToolCallKey, Flight> flights = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final List<String> tools;
+    private final int maxWaiters;
+    private final Duration timeout;
+
+    public McpSingleFlight(@Value("${mcp.coalesce.enabled:true}") boolean enabled,
+                           @Value("${mcp.coalesce.tools:hello,readOutlookEmails}") List<String> tools,
+                           @Value("${mcp.coalesce.max-waiters:1000}") int maxWaiters,
+                           @Value("${mcp.coalesce.timeout:30s}") Duration timeout) {
+        this.enabled = enabled;
+        this.tools = tools;
+        this.maxWaiters = maxWaiters;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Run a call, joining an identical call already in flight if there is one
+     * Only tools listed in mcp.coalesce.tools are coalesced, since sharing a result is
+     * only safe for idempotent tools
+     * 
+     * @param toolName Name of the tool
+     * @param arguments Tool arguments
+     * @param reader Decoder of the result; calls with different readers are not shared
+     * @param call Performs the actual MCP call
+     * @return Mono emitting the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String toolName, Map<String, Object> arguments, ToolResultReader<T> reader,
+                               Supplier<Mono<T>> call) {
+        if (!enabled || !tools.contains(toolName)) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            ToolCallKey key = ToolCallKey.of(toolName, arguments, reader);
+            Flight flight = flights.computeIfAbsent(key, k -> new Flight(k, call));
+            // Past the cap, further callers go upstream on their own instead of piling on
+            if (flight.waiters.incrementAndGet() > maxWaiters) {
+                return call.get();
+            }
+            // The reader is part of the key, so the shared result has the reader's type
+            return (Mono<T>) flight.result;
+        });
+    }
+
+    /**
+     * Number of distinct calls currently in flight
+     */
+    public int inFlight() {
+        return flights.size();
+    }
+}
@@ -0,0 +1,150 @@
+package com.agentweave.mcp;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of MCP tool results in front of McpClient.executeTool
+ * Entries are keyed on tool name plus canonicalized arguments, expire per tool policy and
+ * are evicted by total result size. A stale entry within its stale-while-revalidate window
+ * is served immediately while a single background call refreshes it. Failed calls are
+ * never cached.
+ */
+@Component
+public class McpToolCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpToolCache.class);
+
+    private record Entry(Object value, int weight, long loadedAtNanos) {
+    }
+
+    private final McpCacheProperties properties;
+    private final AsyncCache<ToolCallKey, Entry> cache;
+    private final Set<ToolCallKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    public McpToolCache(McpCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxWeight())
+            .weigher((ToolCallKey key, Entry entry) -> key.canonicalArguments().length() + entry.weight())
+            .expireAfter(new Expiry<ToolCallKey, Entry>() {
+                @Override
+                public long expireAfterCreate(ToolCallKey key, Entry entry, long currentTime) {
+                    return retentionNanos(key.toolName());
+                }
+
+                @Override
+                public long expireAfterUpdate(ToolCallKey key, Entry entry, long currentTime, long currentDuration) {
+                    return retentionNanos(key.toolName());
+                }
+
+                @Override
+                public long expireAfterRead(ToolCallKey key, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "mcp.tools");
+    }
+
+    /**
+     * Check whether results of the given tool are cached
+     */
+    public boolean isCacheable(String toolName) {
+        McpCacheProperties.ToolPolicy policy = properties.getTools().get(toolName);
+        return properties.isEnabled() && policy != null && policy.isCacheable();
+    }
+
+    /**
+     * Return the cached result for a call, loading it on a miss
+     * Concurrent misses on the same key share one load
+     * 
+     * @param toolName Name of the tool
+     * @param arguments Tool arguments
+     * @param reader Decoder of the result; also weighs it for eviction
+     * @param loader Performs the actual MCP call
+     * @return Mono emitting the (possibly cached) result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String toolName, Map<String, Object> arguments, ToolResultReader<T> reader,
+                           Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            ToolCallKey key = ToolCallKey.of(toolName, arguments, reader);
+            McpCacheProperties.ToolPolicy policy = properties.getTools().get(toolName);
+            return Mono.fromFuture(cache.get(key, (k, executor) -> load(reader, loader)))
+                .map(entry -> {
+                    if (System.nanoTime() - entry.loadedAtNanos() > policy.getTtl().toNanos()) {
+                        refreshInBackground(key, reader, loader);
+                    }
+                    // The reader is part of the key, so the value always has the reader's type
+                    return (T) entry.value();
+                });
+        });
+    }
+
+    /**
+     * Drop the cached results of one call
+     */
+    public void invalidate(String toolName, Map<String, Object> arguments) {
+        String canonicalArguments = ToolCallKey.of(toolName, arguments, null).canonicalArguments();
+        cache.synchronous().asMap().keySet().removeIf(key -> key.toolName().equals(toolName)
+            && key.canonicalArguments().equals(canonicalArguments));
+    }
+
+    /**
+     * Drop all cached results of one tool
+     */
+    public void invalidateTool(String toolName) {
+        cache.synchronous().asMap().keySet().removeIf(key -> key.toolName().equals(toolName));
+    }
+
+    /**
+     * Drop every cached result
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private <T> CompletableFuture<Entry> load(ToolResultReader<T> reader, Supplier<Mono<T>> loader) {
+        return loader.get()
+            .map(value -> new Entry(value, reader.weigh(value), System.nanoTime()))
+            .toFuture();
+    }
+
+    private <T> void refreshInBackground(ToolCallKey key, ToolResultReader<T> reader, Supplier<Mono<T>> loader) {
+        // Only one refresh per key; other readers keep getting the stale value meanwhile
+        if (!refreshing.add(key)) {
+            return;
+        }
+        load(reader, loader).whenComplete((entry, error) -> {
+            refreshing.remove(key);
+            if (error != null) {
+                logger.warn("Background refresh of MCP tool '{}' failed: {}", key.toolName(), error.getMessage());
+            } else {
+                cache.put(key, CompletableFuture.completedFuture(entry));
+            }
+        });
+    }
+
+    private long retentionNanos(String toolName) {
+        McpCacheProperties.ToolPolicy policy = properties.getTools().get(toolName);
+        if (policy == null) {
+            return 0;
+        }
+        return policy.getTtl().plus(policy.getStaleWhileRevalidate()).toNanos();
+    }
+}
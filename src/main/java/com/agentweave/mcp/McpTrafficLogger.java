@@ -0,0 +1,174 @@
+package com.agentweave.mcp;
+
+import com.agentweave.mail.Email;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs MCP calls as compact single-line JSON on the "mcp.traffic" logger
+ * Successful calls are sampled at mcp.logging.sample-rate; failed calls and calls slower
+ * than mcp.logging.slow-threshold are always logged. Payloads are only turned into text
+ * once an entry is known to be written, and no more of them than mcp.logging.max-payload-chars.
+ */
+@Component
+public class McpTrafficLogger {
+
+    private static final Logger traffic = LoggerFactory.getLogger("mcp.traffic");
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final int maxPayloadChars;
+
+    public McpTrafficLogger(@Value("${mcp.logging.sample-rate:0.01}") double sampleRate,
+                            @Value("${mcp.logging.slow-threshold:1s}") Duration slowThreshold,
+                            @Value("${mcp.logging.max-payload-chars:2048}") int maxPayloadChars) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxPayloadChars = maxPayloadChars;
+    }
+
+    /**
+     * Record a completed MCP call
+     * Cheap when the entry is not written: only the sampling and level checks run.
+     *
+     * @param tool Tool name, or "batch" for a JSON-RPC batch
+     * @param requestId JSON-RPC request id (first id for a batch)
+     * @param request Serialized request bytes
+     * @param startNanos System.nanoTime() when the call started
+     * @param result Decoded result, or null
+     * @param error Failure, or null on success
+     */
+    public void logCall(String tool, long requestId, byte[] request, long startNanos,
+                        Object result, Throwable error) {
+        long elapsed = System.nanoTime() - startNanos;
+        boolean slow = elapsed >= slowThresholdNanos;
+
+        if (error != null) {
+            if (traffic.isWarnEnabled()) {
+                traffic.warn(format(tool, requestId, request, elapsed, slow, result, error));
+            }
+        } else if (slow) {
+            if (traffic.isWarnEnabled()) {
+                traffic.warn(format(tool, requestId, request, elapsed, true, result, null));
+            }
+        } else if (traffic.isDebugEnabled()) {
+            // Debug logs every call; sampling only thins out INFO
+            traffic.debug(format(tool, requestId, request, elapsed, false, result, null));
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate
+                && traffic.isInfoEnabled()) {
+            traffic.info(format(tool, requestId, request, elapsed, false, result, null));
+        }
+    }
+
+    private String format(String tool, long requestId, byte[] request, long elapsedNanos,
+                          boolean slow, Object result, Throwable error) {
+        StringWriter out = new StringWriter(256);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("event", "mcp.call");
+            generator.writeStringField("tool", tool);
+            generator.writeNumberField("id", requestId);
+            generator.writeNumberField("durationMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            generator.writeStringField("outcome", error != null ? "error" : "ok");
+            if (slow) {
+                generator.writeBooleanField("slow", true);
+            }
+            if (error != null) {
+                generator.writeStringField("error", truncate(String.valueOf(error.getMessage())));
+            }
+            if (request != null) {
+                generator.writeNumberField("requestBytes", request.length);
+                generator.writeStringField("request", truncate(request));
+            }
+            if (result != null) {
+                generator.writeStringField("response", describe(result));
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // StringWriter does not throw; keep the entry rather than fail the call
+            return "{\"event\":\"mcp.call\",\"tool\":\"" + tool + "\",\"logError\":true}";
+        }
+        return out.toString();
+    }
+
+    private String truncate(byte[] payload) {
+        // Decode no more bytes than can survive truncation
+        int length = Math.min(payload.length, maxPayloadChars);
+        String text = new String(payload, 0, length, StandardCharsets.UTF_8);
+        return length < payload.length ? text + "...(" + payload.length + " bytes)" : text;
+    }
+
+    /**
+     * Describe a result in about max-payload-chars characters
+     * Collections are walked item by item and strings copied only up to the limit, so a list of
+     * thousands of emails or a batch's outcomes is never turned into text whole. Emails are
+     * described by id and subject only, since their bodies may be large.
+     */
+    private String describe(Object result) {
+        StringBuilder out = new StringBuilder(Math.min(maxPayloadChars, 256));
+        append(out, result);
+        return out.toString();
+    }
+
+    private void append(StringBuilder out, Object value) {
+        if (value instanceof Collection<?> items) {
+            out.append('[');
+            int written = 0;
+            for (Object item : items) {
+                if (out.length() >= maxPayloadChars) {
+                    out.append("...(").append(items.size()).append(" items)");
+                    break;
+                }
+                if (written++ > 0) {
+                    out.append(", ");
+                }
+                append(out, item);
+            }
+            out.append(']');
+        } else if (value instanceof Email email) {
+            out.append("Email[id=");
+            appendText(out, String.valueOf(email.id()));
+            out.append(", subject=");
+            appendText(out, String.valueOf(email.subject()));
+            out.append(']');
+        } else if (value instanceof McpClient.Outcome outcome) {
+            if (outcome.error() != null) {
+                out.append("error=");
+                appendText(out, String.valueOf(outcome.error().getMessage()));
+            } else {
+                appendText(out, String.valueOf(outcome.result()));
+            }
+        } else {
+            appendText(out, value instanceof CharSequence text ? text : String.valueOf(value));
+        }
+    }
+
+    private void appendText(StringBuilder out, CharSequence text) {
+        int room = Math.max(maxPayloadChars - out.length(), 0);
+        if (text.length() <= room) {
+            out.append(text);
+        } else {
+            out.append(text, 0, room).append("...(").append(text.length()).append(" chars)");
+        }
+    }
+
+    private String truncate(String text) {
+        if (text.length() <= maxPayloadChars) {
+            return text;
+        }
+        return text.substring(0, maxPayloadChars) + "...(" + text.length() + " chars)";
+    }
+}
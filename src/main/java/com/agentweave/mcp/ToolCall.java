@@ -0,0 +1,9 @@
+package com.agentweave.mcp;
+
+import java.util.Map;
+
+/**
+ * A single MCP tool invocation: tool name plus its arguments
+ */
+public record ToolCall(String name, Map<String, Object> arguments) {
+}
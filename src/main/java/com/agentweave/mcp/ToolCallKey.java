@@ -0,0 +1,26 @@
+package com.agentweave.mcp;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.util.Map;
+
+/**
+ * Identity of a tool call: tool name plus arguments serialized with sorted map keys,
+ * so that argument maps with the same content compare equal regardless of insertion order.
+ * The result reader is part of the key since it determines the type of the result.
+ */
+record ToolCallKey(String toolName, String canonicalArguments, ToolResultReader<?> reader) {
+
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    static ToolCallKey of(String toolName, Map<String, Object> arguments, ToolResultReader<?> reader) {
+        try {
+            return new ToolCallKey(toolName, CANONICAL_MAPPER.writeValueAsString(arguments), reader);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Tool arguments are not serializable", e);
+        }
+    }
+}
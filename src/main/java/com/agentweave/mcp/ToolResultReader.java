@@ -0,0 +1,56 @@
+package com.agentweave.mcp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.io.IOException;
+
+/**
+ * Decodes the text content of a tool result (result.content[0].text) into a typed value
+ * The characters are handed over straight from the response parser's buffer, so a reader
+ * that parses them further never needs an intermediate String.
+ */
+@FunctionalInterface
+public interface ToolResultReader<T> {
+
+    /**
+     * Reader returning the text content unchanged
+     */
+    ToolResultReader<String> TEXT = new ToolResultReader<>() {
+        @Override
+        public String read(JsonFactory factory, char[] chars, int offset, int length) {
+            return new String(chars, offset, length);
+        }
+
+        @Override
+        public int weigh(String value) {
+            return value.length();
+        }
+    };
+
+    /**
+     * Decode a text content value
+     * The buffer is only valid for the duration of the call
+     * 
+     * @param factory JSON factory to create nested parsers from
+     * @param chars Buffer holding the (unescaped) text
+     * @param offset Start of the text in the buffer
+     * @param length Length of the text
+     * @return Decoded value
+     */
+    T read(JsonFactory factory, char[] chars, int offset, int length) throws IOException;
+
+    /**
+     * Decode a text content value held in a String
+     */
+    default T read(JsonFactory factory, String text) throws IOException {
+        char[] chars = text.toCharArray();
+        return read(factory, chars, 0, chars.length);
+    }
+
+    /**
+     * Approximate size of a decoded value, used to bound caches
+     */
+    default int weigh(T value) {
+        return 1;
+    }
+}